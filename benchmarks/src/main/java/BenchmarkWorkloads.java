@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/*
+Obciążenia mierzone przez testy JMH z pakietu benchmarks.
+
+JMH nie przyjmuje klas testów w pakiecie domyślnym, a klasy aplikacji leżą właśnie w nim
+i nie są widoczne z nazwanego pakietu. Dlatego przygotowanie danych i samo wywołanie mierzonego
+kodu są tutaj, a test JMH tworzy obciążenie raz przez refleksję (Workloads.create) i w pętli
+pomiarowej woła tylko getAsLong()/getAsDouble() interfejsu z JDK - wywołanie monomorficzne,
+które JIT wstawia w miejscu użycia.
+
+Obciążenia z plikami tymczasowymi implementują AutoCloseable i są sprzątane po pomiarze.
+ */
+public class BenchmarkWorkloads {
+
+    /*
+    Sam podział tekstu na słowa; zwraca liczbę słów.
+     */
+    public static LongSupplier tokenize(int megabytes, int vocabulary, long seed) {
+        char[] text = new PolishTextGenerator(vocabulary, seed).text(megabytes * 1_000_000L).toCharArray();
+        return () -> {
+            long[] tokens = new long[1];
+            WordTokenizer tokenizer = new WordTokenizer((_, _) -> tokens[0]++);
+            tokenizer.feed(text, 0, text.length);
+            tokenizer.finish();
+            return tokens[0];
+        };
+    }
+
+    /*
+    Podział na słowa i zliczanie w WordFrequencyMap; zwraca liczbę różnych słów.
+     */
+    public static LongSupplier countWords(int megabytes, int vocabulary, long seed) {
+        char[] text = new PolishTextGenerator(vocabulary, seed).text(megabytes * 1_000_000L).toCharArray();
+        return () -> {
+            WordFrequencyMap words = new WordFrequencyMap();
+            WordTokenizer tokenizer = new WordTokenizer(words);
+            tokenizer.feed(text, 0, text.length);
+            tokenizer.finish();
+            return words.size();
+        };
+    }
+
+    /*
+    Zliczanie słów z pliku przez FileIngestor (ścieżka getLinkedCountedWord) w wybranym trybie odczytu.
+     */
+    public static LongSupplier countFile(int megabytes, int vocabulary, long seed, String mode) throws IOException {
+        Path file = Files.createTempFile("benchmark", ".txt");
+        Files.writeString(file, new PolishTextGenerator(vocabulary, seed).text(megabytes * 1_000_000L), StandardCharsets.UTF_8);
+        FileIngestor ingestor = switch (FileIngestor.Mode.valueOf(mode)) {
+            case STREAM -> new FileIngestor(Long.MAX_VALUE, Long.MAX_VALUE, ForkJoinPool.commonPool());
+            case MMAP -> new FileIngestor(0, Long.MAX_VALUE, ForkJoinPool.commonPool());
+            case PARALLEL -> new FileIngestor(0, 0, ForkJoinPool.commonPool());
+        };
+        return new FileWorkload(file) {
+            @Override
+            public long getAsLong() {
+                try {
+                    WordFrequencyMap words = new WordFrequencyMap();
+                    ingestor.count(file, words);
+                    return words.size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /*
+    Wybór n najczęstszych słów z mapy o podanej liczbie różnych słów.
+     */
+    public static LongSupplier topN(int vocabulary, int n, long seed) {
+        PolishTextGenerator generator = new PolishTextGenerator(vocabulary, seed);
+        WordFrequencyMap words = new WordFrequencyMap();
+        for (int i = 0; i < vocabulary; i++) {
+            words.add(generator.word(i), 1);
+        }
+        for (long i = 0; i < 20L * vocabulary; i++) {
+            words.add(generator.word(generator.nextRank()), 1);
+        }
+        return () -> words.topN(n).size();
+    }
+
+    /*
+    Podobieństwo cosinusowe dwóch dokumentów, z których każdy zawiera około vocabulary różnych słów.
+     */
+    public static DoubleSupplier cosine(int vocabulary, long seed) {
+        PolishTextGenerator generator = new PolishTextGenerator(2 * vocabulary, seed);
+        TermDictionary dictionary = new TermDictionary();
+        SparseVector first = SparseVector.compile(document(generator, vocabulary), dictionary);
+        SparseVector second = SparseVector.compile(document(generator, vocabulary), dictionary);
+        return () -> CosineSimilarity.cosineSimilarity(first, second);
+    }
+
+    /*
+    Pełny jednorazowy przegląd katalogu silnikiem AnalysisEngine, za każdym razem z pustym indeksem
+    plików; zwraca liczbę dokumentów w korpusie.
+     */
+    public static LongSupplier scan(int files, int kilobytes, int vocabulary, long seed) throws IOException {
+        Path directory = Files.createTempDirectory("benchmark");
+        PolishTextGenerator generator = new PolishTextGenerator(vocabulary, seed);
+        for (int i = 0; i < files; i++) {
+            Files.writeString(directory.resolve(String.format("plik-%04d.txt", i)),
+                    generator.text(kilobytes * 1_000L), StandardCharsets.UTF_8);
+        }
+        return new FileWorkload(directory) {
+            @Override
+            public long getAsLong() {
+                Path index = directory.resolveSibling(directory.getFileName() + ".index");
+                try {
+                    Files.deleteIfExists(index);
+                    EngineConfig config = new EngineConfig()
+                            .setDirectory(directory)
+                            .setIndexPath(index)
+                            .setWatch(false)
+                            .setConsumers(Runtime.getRuntime().availableProcessors());
+                    AnalysisEngine engine = new AnalysisEngine(config, new AnalysisEngine.Listener() {
+                        @Override
+                        public void log(String message) {
+                        }
+
+                        @Override
+                        public void fileAnalyzed(Path path, WordFrequencyMap topWords) {
+                        }
+
+                        @Override
+                        public void similarityComputed(CosineSimilarity.SimilarityResults result) {
+                        }
+                    });
+                    try {
+                        engine.start();
+                        engine.awaitCompletion();
+                        return engine.getCorpusSize();
+                    } finally {
+                        engine.shutdown();
+                        Files.deleteIfExists(index);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static WordFrequencyMap document(PolishTextGenerator generator, int distinctWords) {
+        WordFrequencyMap words = new WordFrequencyMap();
+        while (words.size() < distinctWords) {
+            words.add(generator.word(generator.nextRank()), 1);
+        }
+        return words;
+    }
+
+    /*
+    Obciążenie korzystające z pliku lub katalogu tymczasowego, usuwanego przy zamknięciu.
+     */
+    private abstract static class FileWorkload implements LongSupplier, AutoCloseable {
+        private final Path path;
+
+        FileWorkload(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (Stream<Path> paths = Files.walk(path)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+}
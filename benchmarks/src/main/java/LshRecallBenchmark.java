@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/*
+Pomiar czułości (recall) filtra MinHash/LSH względem dokładnej miary podobieństwa.
+
+Z plików *.txt katalogu (domyślnie files) budowany jest korpus: każdy plik oraz --variants
+jego zaszumionych kopii, w których losowa część słów (od 5% do 60%) zamieniona jest na słowa
+innych plików - daje to pary o różnym stopniu podobieństwa. Dla każdej konfiguracji pasm
+i wierszy wypisywana jest liczba par kandydatów, czułość wobec par o dokładnym podobieństwie
+co najmniej --threshold oraz czas w porównaniu z pełnym przeglądem wszystkich par.
+
+Nie jest testem JMH (jeden przebieg, wynikiem jest czułość, a nie tylko czas), ale jak testy JMH
+leży w module benchmarks, więc nie trafia do jar-a aplikacji.
+
+Użycie:
+  java -cp benchmarks/target/benchmarks.jar LshRecallBenchmark [katalog] [--threshold x] [--scorer nazwa]
+                          [--variants n] [--lsh 8x2,16x4,...] [--seed n]
+ */
+public class LshRecallBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get("files");
+        double threshold = 0.5;
+        String scorerName = RawCosineScorer.NAME;
+        int variants = 20;
+        long seed = 42;
+        String configurations = "8x2,16x2,32x2,16x4,32x4,20x5";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "--scorer" -> scorerName = args[++i];
+                case "--variants" -> variants = Integer.parseInt(args[++i]);
+                case "--lsh" -> configurations = args[++i];
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> directory = Paths.get(args[i]);
+            }
+        }
+
+        List<List<String>> samples = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".txt")).sorted().toList()) {
+                samples.add(tokens(file));
+            }
+        }
+        if (samples.isEmpty()) {
+            System.err.println("Brak plików *.txt w katalogu " + directory);
+            return;
+        }
+
+        Random random = new Random(seed);
+        List<List<String>> corpus = new ArrayList<>();
+        for (int s = 0; s < samples.size(); s++) {
+            corpus.add(samples.get(s));
+            for (int v = 0; v < variants; v++) {
+                double noise = 0.05 + 0.55 * random.nextDouble();
+                corpus.add(perturb(samples.get(s), samples.get((s + 1 + v) % samples.size()), noise, random));
+            }
+        }
+
+        TermDictionary dictionary = new TermDictionary();
+        CorpusStatistics statistics = new CorpusStatistics();
+        List<SparseVector> vectors = new ArrayList<>();
+        for (int d = 0; d < corpus.size(); d++) {
+            WordFrequencyMap words = new WordFrequencyMap();
+            for (String token : corpus.get(d)) {
+                words.add(token, 1);
+            }
+            SparseVector vector = SparseVector.compile(words, dictionary);
+            vectors.add(vector);
+            statistics.update(Paths.get("dokument-" + d), vector);
+        }
+        List<Path> documents = new ArrayList<>();
+        for (int d = 0; d < vectors.size(); d++) {
+            documents.add(Paths.get("dokument-" + d));
+        }
+
+        SimilarityScorer scorer = SimilarityScorer.forName(scorerName, statistics);
+        AllPairsSimilarity allPairs = new AllPairsSimilarity(ForkJoinPool.commonPool(), AllPairsSimilarity.DEFAULT_BLOCK_SIZE, scorer);
+        long totalPairs = (long) vectors.size() * (vectors.size() - 1) / 2;
+
+        Set<Long> exact = new HashSet<>();
+        long start = System.nanoTime();
+        allPairs.compute(vectors, threshold, (i, j, _) -> exact.add(((long) i << 32) | j));
+        double exactMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf(Locale.ROOT, "Dokumenty: %d, pary: %d, miara: %s, próg: %.2f%n",
+                vectors.size(), totalPairs, scorer.name(), threshold);
+        System.out.printf(Locale.ROOT, "Pełny przegląd: %d par powyżej progu, %.1f ms%n%n", exact.size(), exactMillis);
+        System.out.println("pasma x wiersze | próg LSH | kandydaci | % par | znalezione | recall | czas [ms]");
+
+        for (String configuration : configurations.split(",")) {
+            String[] parts = configuration.trim().split("x");
+            MinHashLsh lsh = new MinHashLsh(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), seed);
+
+            start = System.nanoTime();
+            for (int d = 0; d < vectors.size(); d++) {
+                lsh.update(documents.get(d), lsh.signature(vectors.get(d)));
+            }
+            long[] candidates = lsh.candidatePairs(documents);
+            long[] found = new long[1];
+            allPairs.computeCandidates(vectors, candidates, threshold, (i, j, _) -> {
+                if (exact.contains(((long) i << 32) | j)) {
+                    found[0]++;
+                }
+            });
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+            System.out.printf(Locale.ROOT, "%15s | %8.3f | %9d | %5.1f | %10d | %6.3f | %9.1f%n",
+                    lsh.getBands() + "x" + lsh.getRows(), lsh.estimatedThreshold(), candidates.length,
+                    totalPairs == 0 ? 0.0 : 100.0 * candidates.length / totalPairs, found[0],
+                    exact.isEmpty() ? 1.0 : (double) found[0] / exact.size(), millis);
+        }
+    }
+
+    private static List<String> tokens(Path file) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        WordTokenizer tokenizer = new WordTokenizer((buffer, length) -> tokens.add(new String(buffer, 0, length)));
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            tokenizer.tokenize(reader);
+        }
+        return tokens;
+    }
+
+    private static List<String> perturb(List<String> source, List<String> donor, double noise, Random random) {
+        List<String> result = new ArrayList<>(source.size());
+        for (String token : source) {
+            if (!donor.isEmpty() && random.nextDouble() < noise) {
+                result.add(donor.get(random.nextInt(donor.size())));
+            } else {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
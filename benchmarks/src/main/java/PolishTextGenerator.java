@@ -0,0 +1,126 @@
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/*
+Generator tekstu przypominającego polski: słowa złożone z 1-4 sylab z polskimi znakami,
+częstości słów według rozkładu Zipfa (jak w prawdziwym tekście kilka słów dominuje),
+wielkie litery na początku zdań, interpunkcja i podział na akapity.
+
+Ten sam seed daje zawsze ten sam słownik i ten sam tekst, więc pomiary można powtarzać bez sieci.
+ */
+public class PolishTextGenerator {
+    private static final String[] ONSETS = {
+            "", "b", "c", "cz", "ch", "d", "dz", "g", "gł", "j", "k", "kr", "l", "ł", "m", "n",
+            "p", "pr", "r", "rz", "s", "st", "sz", "ś", "t", "w", "z", "ż", "dr", "zw"
+    };
+    private static final String[] NUCLEI = {"a", "e", "i", "o", "u", "y", "ą", "ę", "ó", "ie", "ia"};
+    private static final String[] CODAS = {"", "", "", "n", "ł", "k", "m", "ć", "ś", "st", "j", "r"};
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final int[] utf8Lengths;
+    private final double[] cumulative;
+
+    public PolishTextGenerator(int vocabularySize, long seed) {
+        this.random = new Random(seed);
+        this.vocabulary = new String[vocabularySize];
+        this.utf8Lengths = new int[vocabularySize];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < vocabularySize; ) {
+            String word = randomWord();
+            if (seen.add(word)) {
+                vocabulary[i] = word;
+                utf8Lengths[i] = word.getBytes(StandardCharsets.UTF_8).length;
+                i++;
+            }
+        }
+
+        cumulative = new double[vocabularySize];
+        double sum = 0.0;
+        for (int i = 0; i < vocabularySize; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int vocabularySize() {
+        return vocabulary.length;
+    }
+
+    public String word(int rank) {
+        return vocabulary[rank];
+    }
+
+    /*
+    Indeks słowa w słowniku wylosowany z rozkładu Zipfa.
+     */
+    public int nextRank() {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < u) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+    Tekst o długości co najmniej utf8Bytes bajtów po zakodowaniu w UTF-8 (nadmiar krótszy niż jedno słowo).
+     */
+    public String text(long utf8Bytes) {
+        StringBuilder text = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, utf8Bytes));
+        long bytes = 0;
+        boolean sentenceStart = true;
+        int wordsInSentence = 0;
+        while (bytes < utf8Bytes) {
+            int rank = nextRank();
+            String word = vocabulary[rank];
+            if (sentenceStart) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                sentenceStart = false;
+            } else {
+                text.append(word);
+            }
+            bytes += utf8Lengths[rank];
+            wordsInSentence++;
+
+            if (wordsInSentence > 4 && random.nextInt(10) == 0) {
+                text.append(random.nextInt(4) == 0 ? "!" : ".");
+                text.append(random.nextInt(8) == 0 ? "\n\n" : " ");
+                bytes += 2;
+                sentenceStart = true;
+                wordsInSentence = 0;
+            } else if (random.nextInt(12) == 0) {
+                text.append(", ");
+                bytes += 2;
+            } else {
+                text.append(' ');
+                bytes++;
+            }
+        }
+        return text.toString();
+    }
+
+    private String randomWord() {
+        int syllables = 1 + random.nextInt(4);
+        StringBuilder word = new StringBuilder();
+        for (int s = 0; s < syllables; s++) {
+            word.append(ONSETS[random.nextInt(ONSETS.length)]);
+            word.append(NUCLEI[random.nextInt(NUCLEI.length)]);
+            if (s == syllables - 1 || random.nextInt(3) == 0) {
+                word.append(CODAS[random.nextInt(CODAS.length)]);
+            }
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/*
+Podobieństwo cosinusowe pary skompilowanych wektorów o różnej liczbie różnych słów.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CosineBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int vocabulary;
+
+    @Param("42")
+    long seed;
+
+    private DoubleSupplier cosine;
+
+    @Setup
+    public void setUp() {
+        cosine = Workloads.create("cosine", vocabulary, seed);
+    }
+
+    @Benchmark
+    public double cosine() {
+        return cosine.getAsDouble();
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+Zliczanie słów z pliku przez FileIngestor w każdym z trybów odczytu (strumień, mmap, równolegle).
+Jedna operacja to jeden megabajt pliku, więc wynik w ops/s to MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class FileCountBenchmark {
+    private static final int MEGABYTES = 32;
+
+    @Param({"STREAM", "MMAP", "PARALLEL"})
+    String mode;
+
+    @Param("50000")
+    int vocabulary;
+
+    @Param("42")
+    long seed;
+
+    private LongSupplier countFile;
+
+    @Setup
+    public void setUp() {
+        countFile = Workloads.create("countFile", MEGABYTES, vocabulary, seed, mode);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Workloads.close(countFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public long countFile() {
+        return countFile.getAsLong();
+    }
+}
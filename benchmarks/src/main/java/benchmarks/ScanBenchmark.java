@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+Pełny przegląd katalogu silnikiem AnalysisEngine (producent, kolejka, konsumenci, indeks),
+za każdym razem bez zapisanego indeksu plików.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ScanBenchmark {
+
+    @Param("200")
+    int files;
+
+    @Param("64")
+    int kilobytes;
+
+    @Param("20000")
+    int vocabulary;
+
+    @Param("42")
+    long seed;
+
+    private LongSupplier scan;
+
+    @Setup
+    public void setUp() {
+        scan = Workloads.create("scan", files, kilobytes, vocabulary, seed);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Workloads.close(scan);
+    }
+
+    @Benchmark
+    public long scan() {
+        return scan.getAsLong();
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+Przepustowość podziału na słowa i zliczania w WordFrequencyMap na 8 MB tekstu (UTF-8).
+Jedna operacja to jeden megabajt, więc wynik w ops/s to MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TokenizerBenchmark {
+    private static final int MEGABYTES = 8;
+
+    @Param({"1000", "50000"})
+    int vocabulary;
+
+    @Param("42")
+    long seed;
+
+    private LongSupplier tokenize;
+    private LongSupplier countWords;
+
+    @Setup
+    public void setUp() {
+        tokenize = Workloads.create("tokenize", MEGABYTES, vocabulary, seed);
+        countWords = Workloads.create("countWords", MEGABYTES, vocabulary, seed);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public long tokenize() {
+        return tokenize.getAsLong();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public long countWords() {
+        return countWords.getAsLong();
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+Wybór n najczęstszych słów (WordFrequencyMap.topN) z map o różnej liczbie słów.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class TopNBenchmark {
+
+    @Param({"1000", "100000"})
+    int vocabulary;
+
+    @Param({"10", "100"})
+    int n;
+
+    @Param("42")
+    long seed;
+
+    private LongSupplier topN;
+
+    @Setup
+    public void setUp() {
+        topN = Workloads.create("topN", vocabulary, n, seed);
+    }
+
+    @Benchmark
+    public long topN() {
+        return topN.getAsLong();
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/*
+Tworzenie obciążeń z klasy BenchmarkWorkloads (pakiet domyślny) przez refleksję.
+Wywoływane tylko w @Setup, nigdy w mierzonej pętli.
+ */
+final class Workloads {
+    private Workloads() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T create(String name, Object... arguments) {
+        try {
+            Class<?> workloads = Class.forName("BenchmarkWorkloads");
+            for (Method method : workloads.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == arguments.length) {
+                    return (T) method.invoke(null, arguments);
+                }
+            }
+            throw new IllegalArgumentException("Brak obciążenia: " + name);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Błąd przygotowania obciążenia " + name, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Błąd przygotowania obciążenia " + name, e);
+        }
+    }
+
+    static void close(Object workload) throws Exception {
+        if (workload instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
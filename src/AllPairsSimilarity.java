@@ -0,0 +1,274 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+Podobieństwo wszystkich par dokumentów korpusu wybraną miarą (SimilarityScorer).
+
+Wektory dzielone są na bloki po blockSize dokumentów; każda para bloków (górny trójkąt macierzy)
+liczona jest osobnym zadaniem w ForkJoinPool, więc oba bloki wektorów mieszczą się w pamięci
+podręcznej procesora podczas liczenia. Wiersze bloków uruchamiane są z wyprzedzeniem, tak aby
+w puli czekało co najmniej PENDING_BLOCKS_PER_THREAD zadań na wątek - także przy ostatnich,
+krótkich wierszach pula pracuje równolegle. Wyniki odbierane są wiersz po wierszu w kolejności
+kolumn, więc pary trafiają do wyjścia zawsze w tej samej kolejności (i rosnąco, potem j rosnąco),
+a w pamięci są tylko wyniki wierszy z tego okna.
+
+Zapisywane są pary i < j o podobieństwie co najmniej threshold; threshold <= 0 daje pełną macierz.
+Dla miar niesymetrycznych (BM25) zapytaniem jest dokument i.
+
+Zamiast pełnego trójkąta można podać listę par kandydatów (np. z MinHashLsh) - wtedy
+dokładna miara liczona jest tylko dla nich, równolegle w paczkach po CANDIDATE_CHUNK par.
+ */
+public class AllPairsSimilarity {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final int CANDIDATE_CHUNK = 4096;
+    private static final int PENDING_BLOCKS_PER_THREAD = 4;
+
+    /*
+    Format binarny: MAGIC, VERSION, liczba dokumentów, ścieżki dokumentów (długość + UTF-8),
+    a dalej do końca pliku rekordy par: int i, int j, float podobieństwo.
+     */
+    private static final int MAGIC = 0x41505353;
+    private static final int VERSION = 1;
+
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    public interface PairSink {
+        void accept(int first, int second, double score) throws IOException;
+    }
+
+    private interface PairSource {
+        long emit(PairSink sink) throws IOException;
+    }
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final SimilarityScorer scorer;
+
+    public AllPairsSimilarity(ForkJoinPool pool, int blockSize, SimilarityScorer scorer) {
+        this.pool = pool;
+        this.blockSize = Math.max(1, blockSize);
+        this.scorer = scorer;
+    }
+
+    /*
+    Zwraca liczbę par przekazanych do sink.
+     */
+    public long compute(List<SparseVector> vectors, double threshold, PairSink sink) throws IOException {
+        SparseVector[] documents = vectors.toArray(new SparseVector[0]);
+        int blocks = (documents.length + blockSize - 1) / blockSize;
+        int minPending = PENDING_BLOCKS_PER_THREAD * pool.getParallelism();
+        ArrayDeque<List<BlockTask>> window = new ArrayDeque<>();
+        int nextRow = 0;
+        int pending = 0;
+        long pairs = 0;
+
+        for (int row = 0; row < blocks; row++) {
+            while (nextRow < blocks && (nextRow == row || pending < minPending)) {
+                List<BlockTask> rowTasks = new ArrayList<>(blocks - nextRow);
+                for (int column = nextRow; column < blocks; column++) {
+                    BlockTask task = new BlockTask(documents, nextRow * blockSize, column * blockSize, blockSize, threshold, scorer);
+                    rowTasks.add(task);
+                    pool.execute(task);
+                }
+                window.addLast(rowTasks);
+                pending += rowTasks.size();
+                nextRow++;
+            }
+            List<BlockTask> tasks = window.removeFirst();
+            pending -= tasks.size();
+
+            /*
+            Wyniki bloków jednego wiersza są scalane po i, aby zachować kolejność (i, j).
+             */
+            List<PairBuffer> results = new ArrayList<>(tasks.size());
+            for (BlockTask task : tasks) {
+                results.add(task.join());
+            }
+            int[] positions = new int[results.size()];
+            int rowEnd = Math.min(documents.length, (row + 1) * blockSize);
+            for (int i = row * blockSize; i < rowEnd; i++) {
+                for (int b = 0; b < results.size(); b++) {
+                    PairBuffer buffer = results.get(b);
+                    while (positions[b] < buffer.size && buffer.first[positions[b]] == i) {
+                        int p = positions[b]++;
+                        sink.accept(i, buffer.second[p], buffer.score[p]);
+                        pairs++;
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /*
+    Jak compute, ale tylko dla par kandydatów zakodowanych jako (i << 32) | j, posortowanych rosnąco.
+     */
+    public long computeCandidates(List<SparseVector> vectors, long[] candidates, double threshold,
+                                  PairSink sink) throws IOException {
+        SparseVector[] documents = vectors.toArray(new SparseVector[0]);
+        List<CandidateTask> tasks = new ArrayList<>();
+        for (int from = 0; from < candidates.length; from += CANDIDATE_CHUNK) {
+            CandidateTask task = new CandidateTask(documents, candidates, from,
+                    Math.min(candidates.length, from + CANDIDATE_CHUNK), threshold, scorer);
+            tasks.add(task);
+            pool.execute(task);
+        }
+
+        long pairs = 0;
+        for (CandidateTask task : tasks) {
+            PairBuffer buffer = task.join();
+            for (int p = 0; p < buffer.size; p++) {
+                sink.accept(buffer.first[p], buffer.second[p], buffer.score[p]);
+            }
+            pairs += buffer.size;
+        }
+        return pairs;
+    }
+
+    public long write(List<Path> documents, List<SparseVector> vectors, double threshold,
+                      Path output, Format format) throws IOException {
+        return write(documents, output, format, sink -> compute(vectors, threshold, sink));
+    }
+
+    public long writeCandidates(List<Path> documents, List<SparseVector> vectors, long[] candidates,
+                                double threshold, Path output, Format format) throws IOException {
+        return write(documents, output, format, sink -> computeCandidates(vectors, candidates, threshold, sink));
+    }
+
+    private long write(List<Path> documents, Path output, Format format, PairSource source) throws IOException {
+        if (format == Format.CSV) {
+            try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                out.write("plik_a,plik_b,podobienstwo\n");
+                return source.emit((i, j, score) -> out.write(
+                        csv(documents.get(i).toString()) + "," + csv(documents.get(j).toString()) + ","
+                                + String.format(Locale.ROOT, "%.6f", score) + "\n"));
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(documents.size());
+            for (Path document : documents) {
+                FileIndex.writeString(out, document.toString());
+            }
+            return source.emit((i, j, score) -> {
+                out.writeInt(i);
+                out.writeInt(j);
+                out.writeFloat((float) score);
+            });
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /*
+    Pary (i, j) z bloku wierszy i bloku kolumn, posortowane po i, potem po j.
+     */
+    private static class PairBuffer {
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private double[] score = new double[16];
+        private int size;
+
+        void add(int i, int j, double value) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size * 2);
+                second = Arrays.copyOf(second, size * 2);
+                score = Arrays.copyOf(score, size * 2);
+            }
+            first[size] = i;
+            second[size] = j;
+            score[size] = value;
+            size++;
+        }
+    }
+
+    private static class BlockTask extends RecursiveTask<PairBuffer> {
+        private final SparseVector[] documents;
+        private final int rowStart;
+        private final int columnStart;
+        private final int blockSize;
+        private final double threshold;
+        private final SimilarityScorer scorer;
+
+        BlockTask(SparseVector[] documents, int rowStart, int columnStart, int blockSize, double threshold,
+                  SimilarityScorer scorer) {
+            this.documents = documents;
+            this.rowStart = rowStart;
+            this.columnStart = columnStart;
+            this.blockSize = blockSize;
+            this.threshold = threshold;
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected PairBuffer compute() {
+            PairBuffer buffer = new PairBuffer();
+            int rowEnd = Math.min(documents.length, rowStart + blockSize);
+            int columnEnd = Math.min(documents.length, columnStart + blockSize);
+            for (int i = rowStart; i < rowEnd; i++) {
+                for (int j = Math.max(columnStart, i + 1); j < columnEnd; j++) {
+                    double score = scorer.score(documents[i], documents[j]);
+                    if (score >= threshold || threshold <= 0) {
+                        buffer.add(i, j, score);
+                    }
+                }
+            }
+            return buffer;
+        }
+    }
+
+    private static class CandidateTask extends RecursiveTask<PairBuffer> {
+        private final SparseVector[] documents;
+        private final long[] candidates;
+        private final int from;
+        private final int to;
+        private final double threshold;
+        private final SimilarityScorer scorer;
+
+        CandidateTask(SparseVector[] documents, long[] candidates, int from, int to, double threshold,
+                      SimilarityScorer scorer) {
+            this.documents = documents;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected PairBuffer compute() {
+            PairBuffer buffer = new PairBuffer();
+            for (int p = from; p < to; p++) {
+                int i = (int) (candidates[p] >>> 32);
+                int j = (int) candidates[p];
+                double score = scorer.score(documents[i], documents[j]);
+                if (score >= threshold || threshold <= 0) {
+                    buffer.add(i, j, score);
+                }
+            }
+            return buffer;
+        }
+    }
+}
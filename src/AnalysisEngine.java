@@ -0,0 +1,856 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+Silnik analizy plików: producenci wyszukują pliki tekstowe w katalogu, konsumenci liczą
+statystykę słów i podobieństwo do pliku referencyjnego.
+
+Producenci (obserwacja i przeglądanie katalogu) są ograniczeni przez wejście/wyjście
+i mogą działać na wątkach wirtualnych. Konsumenci tokenizują pliki i działają na wątkach
+platformowych. W trybie adaptacyjnym liczba konsumentów dostosowywana jest do zapełnienia
+kolejki, w zakresie od liczby początkowej do liczby rdzeni.
+ */
+public class AnalysisEngine {
+
+    /*
+    Odbiorca komunikatów i wyników. Wywoływany z wątków producentów i konsumentów.
+     */
+    public interface Listener {
+        void log(String message);
+
+        void fileAnalyzed(Path path, WordFrequencyMap topWords);
+
+        void similarityComputed(CosineSimilarity.SimilarityResults result);
+    }
+
+    private static final PathMatcher TXT_MATCHER = FileSystems.getDefault().getPathMatcher("glob:**/*.txt");
+    private static final int RECONCILE_DELAY_SECONDS = 60;
+    private static final long DEBOUNCE_MILLIS = 500;
+    private static final long POLL_MILLIS = 1000;
+    private static final long PILL_RETRY_MILLIS = 100;
+    private static final long ADAPT_INTERVAL_MILLIS = 200;
+    private static final int ADAPT_SAMPLES = 3;
+    private static final long LSH_SEED = 0x4C53484D494E4841L;
+
+    private final EngineConfig config;
+    private final Listener listener;
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final ExecutorService producerExecutor;
+    private final ExecutorService consumerExecutor;
+    private final ScheduledExecutorService controller;
+    private final List<Future<?>> producentFuture = new ArrayList<>();
+    private final List<Future<?>> consumerFutures = new ArrayList<>();
+    private final TermDictionary dictionary = new TermDictionary();
+    private final FileIngestor ingestor = new FileIngestor();
+    private final FileIndex index;
+    private final InvertedIndex corpusIndex = new InvertedIndex();
+    private final CorpusStatistics statistics = new CorpusStatistics();
+    private final MinHashLsh lsh;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final SimilarityResultStore similarityResults = new SimilarityResultStore();
+
+    /*
+    Stan puli konsumentów bieżącego uruchomienia, chroniony przez consumerLock.
+     */
+    private final Object consumerLock = new Object();
+    private int activeConsumers;
+    private int targetConsumers;
+    private boolean pillsSent;
+    private ScheduledFuture<?> adaptiveTask;
+    private ScheduledFuture<?> metricsTask;
+
+    private volatile Path referenceFilePath;
+    private volatile SparseVector referenceVector;
+    private volatile int[] referenceSignature;
+    private volatile boolean useSimilarityMode = false;
+    private volatile SimilarityScorer scorer;
+
+    public AnalysisEngine(EngineConfig config, Listener listener) {
+        this.config = config;
+        this.listener = listener;
+        this.producerExecutor = config.isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(config.getProducers());
+        this.consumerExecutor = Executors.newFixedThreadPool(config.isAdaptive() ? config.getMaxConsumers() : config.getConsumers());
+        this.controller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "engine-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scorer = SimilarityScorer.forName(config.getScorer(), statistics);
+        this.lsh = config.isLshEnabled() ? new MinHashLsh(config.getLshBands(), config.getLshRows(), LSH_SEED) : null;
+        this.index = loadIndex(config.getIndexPath());
+        metrics.register();
+
+        /*
+        Indeks odwrócony, statystyki korpusu i sygnatury LSH budowane od razu z wektorów zapisanych
+        w indeksie plików, więc zapytania, wagi idf i podobieństwo wszystkich par działają po restarcie
+        bez ponownego przeglądania katalogu. Indeks może być wspólny dla kilku katalogów, więc korpus
+        tworzą tylko wpisy z analizowanego katalogu.
+         */
+        Path root = FileIndex.key(config.getDirectory());
+        index.forEach((path, entry) -> {
+            if (!path.startsWith(root) || !isUsable(entry)) {
+                return;
+            }
+            SparseVector vector = SparseVector.compile(entry.getWords(), dictionary);
+            corpusIndex.addDocument(path, vector);
+            statistics.update(path, vector);
+            if (lsh != null) {
+                lsh.update(path, lsh.signature(vector));
+            }
+        });
+    }
+
+    private static FileIndex loadIndex(Path indexPath) {
+        try {
+            return FileIndex.load(indexPath);
+        } catch (IOException e) {
+            Logger.getLogger(AnalysisEngine.class.getName()).log(Level.SEVERE, "Błąd wczytywania indeksu plików", e);
+            return new FileIndex(indexPath);
+        }
+    }
+
+    public EngineConfig getConfig() {
+        return config;
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /*
+    Zrzut metryk potoku do pliku analysis.metricsFile lub do dziennika, jako tekst lub JSON.
+     */
+    public void dumpMetrics() {
+        String dump = config.isMetricsJson() ? metrics.getJson() + "\n" : metrics.getText();
+        Path metricsFile = config.getMetricsFile();
+        if (metricsFile == null) {
+            listener.log(dump);
+            return;
+        }
+        try {
+            Files.writeString(metricsFile, dump, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Logger.getLogger(AnalysisEngine.class.getName()).log(Level.WARNING, "Błąd zapisu metryk", e);
+        }
+    }
+
+    public Path getReferenceFile() {
+        return referenceFilePath;
+    }
+
+    public boolean hasReferenceVector() {
+        return referenceVector != null;
+    }
+
+    public boolean isSimilarityMode() {
+        return useSimilarityMode;
+    }
+
+    public void setSimilarityMode(boolean useSimilarityMode) {
+        this.useSimilarityMode = useSimilarityMode;
+    }
+
+    public SimilarityScorer getScorer() {
+        return scorer;
+    }
+
+    /*
+    Zmiana miary podobieństwa. Wyniki różnych miar nie są porównywalne, więc dotychczasowe są czyszczone.
+     */
+    public void setScorer(String name) {
+        SimilarityScorer newScorer = SimilarityScorer.forName(name, statistics);
+        config.setScorer(name);
+        this.scorer = newScorer;
+        clearResults();
+    }
+
+    /*
+    Wczytanie pliku referencyjnego i czyszczenie wyników podobieństwa.
+     */
+    public void setReferenceFile(Path referenceFilePath) throws IOException {
+        this.referenceFilePath = referenceFilePath;
+        this.referenceVector = null;
+        clearResults();
+        SparseVector vector = SparseVector.compile(getLinkedCountedWord(referenceFilePath), dictionary);
+        this.referenceSignature = lsh != null ? lsh.signature(vector) : null;
+        this.referenceVector = vector;
+    }
+
+    public void clearResults() {
+        similarityResults.clear();
+    }
+
+    /*
+    Spójna, posortowana malejąco kopia wyników - każdy plik występuje w niej raz.
+     */
+    public List<CosineSimilarity.SimilarityResults> getSortedResults() {
+        return similarityResults.snapshot();
+    }
+
+    public List<CosineSimilarity.SimilarityResults> getTopResults(int k) {
+        return similarityResults.topK(k);
+    }
+
+    public int getResultCount() {
+        return similarityResults.size();
+    }
+
+    public int getCorpusSize() {
+        return corpusIndex.size();
+    }
+
+    /*
+    k plików korpusu najbardziej podobnych do podanego pliku (z pominięciem jego samego).
+     */
+    public List<CosineSimilarity.SimilarityResults> findSimilar(Path queryFile, int k) throws IOException {
+        return corpusIndex.topK(SparseVector.compile(getLinkedCountedWord(queryFile), dictionary), k, queryFile);
+    }
+
+    /*
+    k plików korpusu najbardziej podobnych do podanego tekstu.
+     */
+    public List<CosineSimilarity.SimilarityResults> findSimilar(String text, int k) {
+        WordFrequencyMap words = new WordFrequencyMap();
+        WordTokenizer tokenizer = new WordTokenizer(words);
+        char[] chars = text.toCharArray();
+        tokenizer.feed(chars, 0, chars.length);
+        tokenizer.finish();
+        return corpusIndex.topK(SparseVector.compile(words, dictionary), k, null);
+    }
+
+    /*
+    Podobieństwo wszystkich par plików katalogu znanych z indeksu plików (pary o podobieństwie
+    co najmniej threshold) zapisane do pliku output. Zwraca liczbę zapisanych par.
+     */
+    public long computeAllPairs(double threshold, Path output, AllPairsSimilarity.Format format) throws IOException {
+        Path directory = FileIndex.key(config.getDirectory());
+        Map<Path, SparseVector> corpus = new TreeMap<>();
+        index.forEach((path, entry) -> {
+            if (path.startsWith(directory) && isUsable(entry)) {
+                corpus.put(path, SparseVector.compile(entry.getWords(), dictionary));
+            }
+        });
+        AllPairsSimilarity allPairs = new AllPairsSimilarity(ForkJoinPool.commonPool(), AllPairsSimilarity.DEFAULT_BLOCK_SIZE, scorer);
+        List<Path> documents = new ArrayList<>(corpus.keySet());
+        if (lsh != null) {
+            return allPairs.writeCandidates(documents, new ArrayList<>(corpus.values()), lsh.candidatePairs(documents),
+                    threshold, output, format);
+        }
+        return allPairs.write(documents, new ArrayList<>(corpus.values()), threshold, output, format);
+    }
+
+    public boolean isProducerRunning() {
+        for (Future<?> f : producentFuture) {
+            if (!f.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+    Uruchamia producentów i konsumentów. Zwraca false, jeśli producent z poprzedniego
+    uruchomienia nadal działa.
+     */
+    public boolean start() {
+        if (isProducerRunning()) {
+            return false;
+        }
+
+        isRunning.set(false);
+        producentFuture.clear();
+        clearResults();
+
+        final BlockingQueue<Optional<Path>> queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+        metrics.started();
+        metrics.watch(queue, config.getQueueCapacity(), () -> {
+            synchronized (consumerLock) {
+                return activeConsumers;
+            }
+        });
+
+        synchronized (consumerLock) {
+            activeConsumers = 0;
+            targetConsumers = config.getConsumers();
+            pillsSent = false;
+            consumerFutures.clear();
+        }
+
+        /*
+        Wątki producentów. Pliki wysłane do analizy w tym uruchomieniu są wspólne dla wszystkich
+        producentów; przy kolejnych przeglądach katalogu pliki trafiają do kolejki ponownie tylko wtedy,
+        gdy zmienił się ich rozmiar lub czas modyfikacji. Poison pills wysyła ostatni kończący producent.
+         */
+        final Set<Path> queuedFiles = ConcurrentHashMap.newKeySet();
+        final AtomicInteger runningProducers = new AtomicInteger(config.getProducers());
+        for (int i = 0; i < config.getProducers(); i++) {
+            Future<?> f = producerExecutor.submit(getRunnable(queue, i, queuedFiles, runningProducers));
+            producentFuture.add(f);
+        }
+
+        for (int i = 0; i < config.getConsumers(); i++) {
+            startConsumer(queue);
+        }
+
+        if (config.getMetricsInterval() > 0 && metricsTask == null) {
+            metricsTask = controller.scheduleAtFixedRate(this::dumpMetrics,
+                    config.getMetricsInterval(), config.getMetricsInterval(), TimeUnit.SECONDS);
+        }
+
+        if (config.isAdaptive()) {
+            if (adaptiveTask != null) {
+                adaptiveTask.cancel(false);
+            }
+            adaptiveTask = controller.scheduleAtFixedRate(createAdaptiveController(queue),
+                    ADAPT_INTERVAL_MILLIS, ADAPT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    public void stop() {
+        isRunning.set(true);
+        for (Future<?> future : producentFuture) {
+            future.cancel(true);
+        }
+    }
+
+    /*
+    Czeka, aż producenci i wszyscy konsumenci bieżącego uruchomienia zakończą pracę.
+    W trybie wsadowym (watch = false) kończy się po przetworzeniu wszystkich plików.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        for (Future<?> future : producentFuture) {
+            awaitQuietly(future);
+        }
+        List<Future<?>> consumers;
+        synchronized (consumerLock) {
+            consumers = new ArrayList<>(consumerFutures);
+        }
+        for (Future<?> future : consumers) {
+            awaitQuietly(future);
+        }
+        if (adaptiveTask != null) {
+            adaptiveTask.cancel(false);
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (CancellationException | ExecutionException e) {
+            Logger.getLogger(AnalysisEngine.class.getName()).log(Level.FINE, "Zadanie zakończone wyjątkiem", e);
+        }
+    }
+
+    public void shutdown() {
+        producerExecutor.shutdownNow();
+        consumerExecutor.shutdownNow();
+        controller.shutdownNow();
+        metrics.unregister();
+    }
+
+    private boolean startConsumer(BlockingQueue<Optional<Path>> queue) {
+        synchronized (consumerLock) {
+            if (pillsSent) {
+                return false;
+            }
+            activeConsumers++;
+            consumerFutures.add(consumerExecutor.submit(createConsumer(queue)));
+        }
+        return true;
+    }
+
+    /*
+    Kontroler trybu adaptacyjnego. Gdy kolejka przez kilka kolejnych próbek jest zapełniona
+    w co najmniej 3/4, konsumenci nie nadążają i dodawany jest kolejny (do liczby rdzeni).
+    Gdy kolejka jest stale pusta, docelowa liczba konsumentów maleje, a nadmiarowy konsument
+    kończy pracę po przetworzeniu bieżącego pliku.
+     */
+    private Runnable createAdaptiveController(BlockingQueue<Optional<Path>> queue) {
+        final int capacity = config.getQueueCapacity();
+        final int[] fullSamples = new int[1];
+        final int[] emptySamples = new int[1];
+
+        return () -> {
+            int depth = queue.size();
+            fullSamples[0] = depth * 4 >= capacity * 3 ? fullSamples[0] + 1 : 0;
+            emptySamples[0] = depth == 0 ? emptySamples[0] + 1 : 0;
+
+            if (fullSamples[0] >= ADAPT_SAMPLES) {
+                fullSamples[0] = 0;
+                boolean grow;
+                synchronized (consumerLock) {
+                    grow = !pillsSent && activeConsumers < config.getMaxConsumers();
+                    if (grow) {
+                        targetConsumers = Math.max(targetConsumers, activeConsumers + 1);
+                    }
+                }
+                if (grow && startConsumer(queue)) {
+                    listener.log(String.format("Tryb adaptacyjny: kolejka %d/%d, dodano konsumenta\n", depth, capacity));
+                }
+            } else if (emptySamples[0] >= ADAPT_SAMPLES) {
+                emptySamples[0] = 0;
+                synchronized (consumerLock) {
+                    targetConsumers = Math.max(config.getConsumers(), targetConsumers - 1);
+                }
+            }
+        };
+    }
+
+    /*
+    Konsument kończy pracę, jeśli jest nadmiarowy względem docelowej liczby konsumentów.
+     */
+    private boolean shouldRetire() {
+        synchronized (consumerLock) {
+            if (!pillsSent && activeConsumers > targetConsumers) {
+                activeConsumers--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void sendPoisonPills(BlockingQueue<Optional<Path>> queue, String name) {
+        int pills;
+        synchronized (consumerLock) {
+            if (pillsSent) {
+                return;
+            }
+            pillsSent = true;
+            pills = activeConsumers;
+        }
+
+        /*
+        Wstawianie poison pills do kolejki, aby zakończyć działanie konsumentów. Przerwanie w trakcie
+        (np. spóźnione cancel(true) ze Stop) nie może zgubić pigułki, więc wstawianie jest ponawiane,
+        a flaga przerwania przywracana na końcu. Pełna kolejka nie blokuje producenta na zawsze:
+        po shutdown() albo gdy żaden konsument już nie działa, pigułek nie ma kto odebrać.
+         */
+        boolean interrupted = false;
+        int sent = 0;
+        while (sent < pills && !consumerExecutor.isShutdown() && anyConsumerAlive()) {
+            try {
+                if (queue.offer(Optional.empty(), PILL_RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                    sent++;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                listener.log(String.format("Producent: %s przerwany podczas wysyłania poison pills\n", name));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean anyConsumerAlive() {
+        synchronized (consumerLock) {
+            for (Future<?> future : consumerFutures) {
+                if (!future.isDone()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String threadName() {
+        Thread thread = Thread.currentThread();
+        return thread.getName().isEmpty() ? "virtual-" + thread.threadId() : thread.getName();
+    }
+
+    private void saveIndex() {
+        try {
+            index.save();
+        } catch (IOException e) {
+            listener.log("Błąd zapisu indeksu plików: " + e.getMessage() + "\n");
+        }
+    }
+
+    /*
+    Producent numer producer. Przy kilku producentach każdy przegląda cały katalog (żeby poprawnie
+    usuwać z indeksu zniknięte pliki), ale do kolejki wysyła tylko pliki ze swojej części drzewa
+    (isOwnedBy), więc żaden plik nie jest analizowany kilka razy.
+     */
+    private Runnable getRunnable(BlockingQueue<Optional<Path>> queue, int producer, Set<Path> queuedFiles,
+                                 AtomicInteger runningProducers) {
+        return () -> {
+            final String name = threadName();
+            listener.log(String.format("Producent: %s uruchomiony...\n", name));
+
+            Path dir = config.getDirectory();
+            DirectoryWatcher watcher = null;
+            try {
+                if (config.isWatch() && Files.isDirectory(dir)) {
+                    watcher = new DirectoryWatcher(dir, DEBOUNCE_MILLIS);
+                }
+            } catch (IOException e) {
+                listener.log("Nie można obserwować katalogu " + dir + ": " + e.getMessage() + "\n");
+            }
+
+            long nextScan = System.nanoTime();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (isRunning.get()) {
+                        break;
+                    }
+
+                    /*
+                    Pełny przegląd katalogu na starcie, po przepełnieniu kolejki zdarzeń
+                    oraz okresowo jako zabezpieczenie przed zgubionymi zdarzeniami.
+                     */
+                    if (watcher == null || watcher.consumeOverflow() || System.nanoTime() - nextScan >= 0) {
+                        scanDirectory(dir, queue, producer, queuedFiles);
+                        if (!config.isWatch()) {
+                            break;
+                        }
+                        nextScan = System.nanoTime() + TimeUnit.SECONDS.toNanos(RECONCILE_DELAY_SECONDS);
+                        if (watcher == null) {
+                            listener.log(String.format("Producent: %s ponownie sprawdzi katalogi za %d sekund...\n", name, RECONCILE_DELAY_SECONDS));
+                            sleepUntil(nextScan, name);
+                        }
+                        continue;
+                    }
+
+                    /*
+                    Oczekiwanie na zmiany w katalogu i wysłanie do kolejki tylko zmienionych plików.
+                     */
+                    try {
+                        Set<Path> changed = watcher.awaitChanges(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        for (Path file : changed) {
+                            if (!isOwnedBy(file, producer) || !Files.isRegularFile(file)) {
+                                continue;
+                            }
+                            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                            if (!enqueueFile(file, attrs, queue, queuedFiles)) {
+                                break;
+                            }
+                        }
+                        Set<Path> deleted = watcher.consumeDeleted();
+                        if (!deleted.isEmpty()) {
+                            for (Path file : deleted) {
+                                if (!isOwnedBy(file, producer)) {
+                                    continue;
+                                }
+                                index.remove(file);
+                                corpusIndex.removeDocument(file);
+                                statistics.remove(file);
+                                if (lsh != null) {
+                                    lsh.remove(file);
+                                }
+                                queuedFiles.remove(FileIndex.key(file));
+                            }
+                            saveIndex();
+                        }
+                    } catch (IOException e) {
+                        listener.log("Błąd wejścia/wyjścia: " + e.getMessage() + "\n");
+                    } catch (InterruptedException e) {
+                        listener.log(String.format("Oczekiwanie producenta %s przerwane!\n", name));
+                        if (!isRunning.get()) Thread.currentThread().interrupt();
+                    }
+                }
+            } finally {
+
+                /*
+                Poison pills wysyłane przez ostatniego producenta przy każdym wyjściu z pętli (koniec
+                przeglądu, Stop, przerwanie, anulowanie), żeby żaden konsument nie czekał w take()
+                na zawsze. Flaga przerwania jest zdejmowana na czas wysyłania, a potem przywracana.
+                 */
+                boolean interrupted = Thread.interrupted();
+                if (runningProducers.decrementAndGet() == 0) {
+                    sendPoisonPills(queue, name);
+                }
+                if (watcher != null) {
+                    try {
+                        watcher.close();
+                    } catch (IOException e) {
+                        Logger.getLogger(AnalysisEngine.class.getName()).log(Level.WARNING, "Błąd zamykania obserwatora katalogu", e);
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            listener.log(String.format("Producent %s zakończył pracę!\n", name));
+        };
+    }
+
+    private void sleepUntil(long deadline, String name) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(deadline - System.nanoTime());
+        } catch (InterruptedException e) {
+            listener.log(String.format("Przerwa producenta %s przerwana!\n", name));
+            if (!isRunning.get()) Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+    Wyszukiwanie plików tekstowych i dodawanie ich do kolejki.
+     */
+    private void scanDirectory(Path dir, BlockingQueue<Optional<Path>> queue, int producer, Set<Path> queuedFiles) {
+        try {
+            if (Files.exists(dir) && Files.isDirectory(dir)) {
+                final Set<Path> existingFiles = new HashSet<>();
+                final AtomicBoolean walkCompleted = new AtomicBoolean(true);
+                long walkStart = System.nanoTime();
+                Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        existingFiles.add(FileIndex.key(file));
+                        if (isOwnedBy(file, producer) && !enqueueFile(file, attrs, queue, queuedFiles)) {
+                            walkCompleted.set(false);
+                            return FileVisitResult.TERMINATE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+                metrics.walk().record(System.nanoTime() - walkStart);
+
+                /*
+                Usunięcie z indeksu plików, które zniknęły z przeglądanego katalogu, i zapis indeksu.
+                Wpisy spoza katalogu (inne katalogi, pliki referencyjne) zostają w indeksie.
+                 */
+                if (walkCompleted.get()) {
+                    Path root = FileIndex.key(dir);
+                    index.retainOnly(root, existingFiles);
+                    corpusIndex.retainOnly(root, existingFiles);
+                    statistics.retainOnly(root, existingFiles);
+                    if (lsh != null) {
+                        lsh.retainOnly(root, existingFiles);
+                    }
+                }
+                saveIndex();
+            } else {
+                listener.log("Katalog " + dir + " nie istnieje lub nie jest katalogiem!\n");
+            }
+        } catch (IOException e) {
+            listener.log("Błąd wejścia/wyjścia: " + e.getMessage() + "\n");
+        }
+    }
+
+    /*
+    Wysyła plik do kolejki, pomijając plik referencyjny, pliki inne niż .txt
+    oraz pliki niezmienione od ostatniej analizy. Zwraca false, gdy producent ma zakończyć pracę.
+     */
+    private boolean enqueueFile(Path file, BasicFileAttributes attrs, BlockingQueue<Optional<Path>> queue, Set<Path> queuedFiles) {
+        if (useSimilarityMode && file.equals(referenceFilePath)) {
+            return true;
+        }
+        if (!TXT_MATCHER.matches(file)) {
+            return true;
+        }
+
+        /*
+        Niezmieniony plik trafia do kolejki tylko raz w danym uruchomieniu - wynik add() jest
+        atomowym sprawdzeniem, czy został już wysłany.
+         */
+        Path key = FileIndex.key(file);
+        FileIndex.Entry entry = index.get(file);
+        boolean unchanged = entry != null && entry.matches(attrs.size(), attrs.lastModifiedTime().toMillis());
+        if (Thread.currentThread().isInterrupted() || isRunning.get()) {
+            return false;
+        }
+        if (!queuedFiles.add(key) && unchanged) {
+            return true;
+        }
+        try {
+            long putStart = System.nanoTime();
+            queue.put(Optional.of(file));
+            metrics.queuePut().record(System.nanoTime() - putStart);
+            metrics.fileEnqueued();
+            listener.log("Dodano plik do analizy: " + file.getFileName() + "\n");
+            return true;
+        } catch (InterruptedException e) {
+            queuedFiles.remove(key);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+    Podział drzewa katalogów między producentów według skrótu ścieżki.
+     */
+    private boolean isOwnedBy(Path file, int producer) {
+        return Math.floorMod(FileIndex.key(file).hashCode(), config.getProducers()) == producer;
+    }
+
+    private Runnable createConsumer(BlockingQueue<Optional<Path>> queue)
+    {
+        return () -> {
+            final String name = threadName();
+            listener.log(String.format("Konsument: %s uruchomiony...\n", name));
+
+            boolean retired = false;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    long takeStart = System.nanoTime();
+                    Optional<Path> optionalPath = queue.take();
+                    metrics.queueTake().record(System.nanoTime() - takeStart);
+                    if (optionalPath.isEmpty()) {
+                        break;
+                    }
+
+                    processFile(optionalPath.get());
+
+                    if (shouldRetire()) {
+                        retired = true;
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    listener.log(String.format("Oczekiwanie konsumenta %s zostało przerwane!\n", name));
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            saveIndex();
+            if (retired) {
+                listener.log(String.format("Tryb adaptacyjny: konsument %s zwolniony\n", name));
+            }
+            listener.log(String.format("Konsument %s zakończył pracę!\n", name));
+        };
+    }
+
+    private void processFile(Path path) {
+        final String fileName = path.getFileName().toString();
+        listener.log(String.format("Przetwarzanie pliku: %s\n", fileName));
+        long fileStart = System.nanoTime();
+
+        try {
+
+            /*
+            Jeden odczyt pliku: pełny wektor słów, z którego wybierana jest statystyka
+            i który służy do liczenia podobieństwa.
+             */
+            WordFrequencyMap fullWordStats = getLinkedCountedWord(path);
+            listener.fileAnalyzed(path, fullWordStats.topN(config.getStatistics()));
+
+            /*
+            Użycie wektora słów do porównywania i dodanie go do indeksu odwróconego korpusu.
+             */
+            SparseVector vector = SparseVector.compile(fullWordStats, dictionary);
+            corpusIndex.addDocument(path, vector);
+            statistics.update(path, vector);
+            int[] signature = null;
+            if (lsh != null) {
+                signature = lsh.signature(vector);
+                lsh.update(path, signature);
+            }
+
+            /*
+            Jeśli tryb podobieństwa jest włączony, oblicz je. Z filtrem LSH tylko dla plików,
+            których sygnatura zgadza się z sygnaturą pliku referencyjnego w którymś paśmie.
+             */
+            long epoch = similarityResults.epoch();
+            SparseVector reference = referenceVector;
+            int[] referenceSig = referenceSignature;
+            if (useSimilarityMode && reference != null && signature != null && referenceSig != null
+                    && !lsh.isCandidate(referenceSig, signature)) {
+                listener.log(String.format("Plik %s odrzucony przez filtr LSH\n", fileName));
+            } else if (useSimilarityMode && reference != null) {
+
+                /*
+                Dodanie wyniku podobieństwa do listy wyników.
+                 */
+                SimilarityScorer currentScorer = scorer;
+                long similarityStart = System.nanoTime();
+                final double finalSimilarity = currentScorer.score(reference, vector);
+                metrics.similarity().record(System.nanoTime() - similarityStart);
+                CosineSimilarity.SimilarityResults newResult =
+                        new CosineSimilarity.SimilarityResults(fileName, finalSimilarity, currentScorer.name());
+
+                if (similarityResults.add(epoch, path, newResult)) {
+                    listener.similarityComputed(newResult);
+                }
+            }
+        } catch (Exception e) {
+            metrics.error();
+            listener.log("Błąd podczas przetwarzania pliku " + fileName + ": " + e.getMessage() + "\n");
+            Logger.getLogger(AnalysisEngine.class.getName()).log(Level.SEVERE, "Komunikat opisujący kontekst błędu", e);
+        }
+        metrics.fileProcessed(System.nanoTime() - fileStart);
+    }
+
+    /*
+    Czy wektor z indeksu można użyć przy bieżących ustawieniach: dokładny zawsze, przybliżony tylko
+    wtedy, gdy plik nadal byłby liczony w stałej pamięci z tą samą liczbą śledzonych słów.
+     */
+    private boolean isUsable(FileIndex.Entry entry) {
+        return !entry.isApproximate()
+                || (config.isStreamingEnabled() && entry.getSize() >= config.getStreamingThreshold()
+                && entry.getApproximateCapacity() == config.getStreamingCapacity());
+    }
+
+    /*
+    Wektor słów pliku. Plik niezmieniony od ostatniej analizy (rozmiar i czas modyfikacji,
+    a przy samej zmianie czasu - skrót zawartości) pobierany jest z indeksu bez ponownego odczytu.
+     */
+    private WordFrequencyMap getLinkedCountedWord(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        FileIndex.Entry entry = index.get(path);
+        if (entry != null && !isUsable(entry)) {
+            entry = null;
+        }
+        final String cachedInfo = String.format("  Plik %s bez zmian - wektor słów z indeksu%s\n", path.getFileName(),
+                entry != null && entry.isApproximate() ? " (liczności przybliżone)" : "");
+        if (entry != null && entry.matches(size, modified)) {
+            metrics.fileFromIndex();
+            listener.log(cachedInfo);
+            return entry.getWords();
+        }
+        if (entry != null && entry.getSize() == size) {
+            long hash = FileIndex.contentHash(path);
+            if (hash == entry.getHash()) {
+                index.put(path, new FileIndex.Entry(size, modified, hash, entry.getWords(), entry.getApproximateCapacity()));
+                metrics.fileFromIndex();
+                listener.log(cachedInfo);
+                return entry.getWords();
+            }
+        }
+
+        WordFrequencyMap wordCount;
+        FileIngestor.Result ingest;
+        int approximateCapacity = 0;
+        if (config.isStreamingEnabled() && size >= config.getStreamingThreshold()) {
+
+            /*
+            Duży plik liczony w stałej pamięci: tylko streamingCapacity najczęstszych słów,
+            liczniki przybliżone (Space-Saving). Wpis indeksu oznaczany jest jako przybliżony,
+            więc po zmianie ustawień plik zostanie policzony ponownie.
+             */
+            SpaceSavingCounter counter = new SpaceSavingCounter(config.getStreamingCapacity());
+            ingest = ingestor.ingest(path, new WordTokenizer(counter));
+            wordCount = counter.toFrequencyMap();
+            if (counter.isApproximate()) {
+                approximateCapacity = counter.capacity();
+                listener.log(String.format("  Plik %s: liczności przybliżone (%d słów, maks. błąd %d)\n",
+                        path.getFileName(), counter.total(), counter.errorBound()));
+            }
+        } else {
+            wordCount = new WordFrequencyMap();
+            ingest = ingestor.count(path, wordCount);
+        }
+        metrics.tokenize().record(ingest.getNanos());
+        metrics.bytesRead(ingest.getBytes());
+        index.put(path, new FileIndex.Entry(size, modified, ingest.getHash(), wordCount, approximateCapacity));
+
+        /*
+        Przepustowość odczytu wraz z użytą ścieżką (strumień, mmap, mmap równolegle).
+         */
+        listener.log(String.format("  Odczyt pliku %s: %s\n", path.getFileName(), ingest));
+        return wordCount;
+    }
+}
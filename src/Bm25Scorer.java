@@ -0,0 +1,58 @@
+/*
+Okapi BM25: suma po słowach zapytania idf(t) * tf * (k1 + 1) / (tf + k1 * (1 - b + b * dl / avgdl)),
+gdzie tf to liczność słowa w porównywanym pliku, a dl jego długość. Wynik nie jest ograniczony do [0, 1]
+i nie jest symetryczny - zapytaniem jest plik referencyjny. Liczność słowa w zapytaniu nie ma znaczenia.
+ */
+public class Bm25Scorer implements SimilarityScorer {
+    public static final String NAME = "bm25";
+    public static final double DEFAULT_K1 = 1.2;
+    public static final double DEFAULT_B = 0.75;
+
+    private final CorpusStatistics statistics;
+    private final double k1;
+    private final double b;
+
+    public Bm25Scorer(CorpusStatistics statistics) {
+        this(statistics, DEFAULT_K1, DEFAULT_B);
+    }
+
+    public Bm25Scorer(CorpusStatistics statistics, double k1, double b) {
+        this.statistics = statistics;
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public double score(SparseVector query, SparseVector document) {
+        long documents = statistics.documentCount();
+        double averageLength = statistics.averageLength();
+        double lengthRatio = averageLength == 0 ? 1.0 : document.length() / averageLength;
+        double normalizer = k1 * (1 - b + b * lengthRatio);
+
+        double score = 0.0;
+        int i = 0;
+        int j = 0;
+        while (i < query.size() && j < document.size()) {
+            int a = query.termIdAt(i);
+            int c = document.termIdAt(j);
+            if (a == c) {
+                int df = statistics.documentFrequency(a);
+                double idf = Math.log(1.0 + (documents - df + 0.5) / (df + 0.5));
+                double tf = document.countAt(j);
+                score += idf * tf * (k1 + 1) / (tf + normalizer);
+                i++;
+                j++;
+            } else if (a < c) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return score;
+    }
+}
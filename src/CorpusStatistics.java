@@ -0,0 +1,107 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Statystyki korpusu dla wag TF-IDF i BM25: liczba dokumentów, łączna liczba słów
+i liczba dokumentów zawierających każdy termin (document frequency).
+
+Liczności dokumentów trzymane są w stronach AtomicIntegerArray indeksowanych identyfikatorem
+terminu z TermDictionary, więc konsumenci aktualizują je równolegle bez wspólnej blokady.
+Blokada potrzebna jest tylko przy dokładaniu nowej strony, a tablica stron podmieniana jest
+w całości (kopiowanie przy zapisie), dzięki czemu odczyt nie wymaga synchronizacji.
+
+Zmieniony plik najpierw odejmuje wkład poprzedniej wersji, a potem dodaje nowy.
+ */
+public class CorpusStatistics {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final ConcurrentHashMap<Path, SparseVector> documents = new ConcurrentHashMap<>();
+    private final LongAdder documentCount = new LongAdder();
+    private final LongAdder totalLength = new LongAdder();
+    private final Object pagesLock = new Object();
+    private volatile AtomicIntegerArray[] pages = new AtomicIntegerArray[0];
+
+    public void update(Path path, SparseVector vector) {
+        SparseVector previous = documents.put(FileIndex.key(path), vector);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(vector, 1);
+    }
+
+    public void remove(Path path) {
+        SparseVector previous = documents.remove(FileIndex.key(path));
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    /*
+    Usuwa dokumenty z katalogu root spoza podanego zbioru ścieżek (w postaci FileIndex.key).
+     */
+    public void retainOnly(Path root, Set<Path> existing) {
+        for (Path key : documents.keySet()) {
+            if (key.startsWith(root) && !existing.contains(key)) {
+                remove(key);
+            }
+        }
+    }
+
+    public long documentCount() {
+        return documentCount.sum();
+    }
+
+    public double averageLength() {
+        long count = documentCount.sum();
+        return count == 0 ? 0.0 : (double) totalLength.sum() / count;
+    }
+
+    public int documentFrequency(int termId) {
+        AtomicIntegerArray[] current = pages;
+        int page = termId >>> PAGE_BITS;
+        if (page >= current.length || current[page] == null) {
+            return 0;
+        }
+        return current[page].get(termId & (PAGE_SIZE - 1));
+    }
+
+    /*
+    Wygładzone idf: zawsze dodatnie, także dla terminu obecnego we wszystkich dokumentach
+    i dla terminu spoza korpusu.
+     */
+    public double idf(int termId) {
+        return Math.log((documentCount() + 1.0) / (documentFrequency(termId) + 1.0)) + 1.0;
+    }
+
+    private void apply(SparseVector vector, int sign) {
+        for (int i = 0; i < vector.size(); i++) {
+            int termId = vector.termIdAt(i);
+            page(termId).addAndGet(termId & (PAGE_SIZE - 1), sign);
+        }
+        totalLength.add(sign * vector.length());
+        documentCount.add(sign);
+    }
+
+    private AtomicIntegerArray page(int termId) {
+        int page = termId >>> PAGE_BITS;
+        AtomicIntegerArray[] current = pages;
+        if (page < current.length && current[page] != null) {
+            return current[page];
+        }
+        synchronized (pagesLock) {
+            current = pages;
+            if (page < current.length && current[page] != null) {
+                return current[page];
+            }
+            AtomicIntegerArray[] grown = Arrays.copyOf(current, Math.max(current.length, page + 1));
+            grown[page] = new AtomicIntegerArray(PAGE_SIZE);
+            pages = grown;
+            return grown[page];
+        }
+    }
+}
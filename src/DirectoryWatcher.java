@@ -0,0 +1,169 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+Obserwacja drzewa katalogów przez WatchService.
+
+Wszystkie podkatalogi rejestrowane są rekurencyjnie (także te utworzone później).
+Zdarzenia dla jednej ścieżki są scalane: plik zgłaszany jest dopiero wtedy, gdy przez
+debounceMillis nie przyszło dla niego żadne nowe zdarzenie, więc seria zapisów daje jedno zgłoszenie.
+Przepełnienie kolejki zdarzeń (OVERFLOW) sygnalizowane jest flagą - wtedy należy przejrzeć
+katalog w całości.
+ */
+public class DirectoryWatcher implements Closeable {
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, Long> pendingChanges = new HashMap<>();
+    private final Set<Path> deleted = new HashSet<>();
+    private final long debounceNanos;
+    private boolean overflow;
+
+    public DirectoryWatcher(Path root, long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        registerTree(root, false);
+    }
+
+    /*
+    Czeka najwyżej timeout na zmiany i zwraca pliki, które przestały się zmieniać.
+    Pusty wynik oznacza brak ustabilizowanych zmian w tym czasie.
+     */
+    public Set<Path> awaitChanges(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long now = System.nanoTime();
+            Set<Path> settled = drainSettled(now);
+            if (!settled.isEmpty() || overflow || now >= deadline) {
+                return settled;
+            }
+
+            long wait = deadline - now;
+            for (long lastEvent : pendingChanges.values()) {
+                wait = Math.min(wait, lastEvent + debounceNanos - now);
+            }
+
+            try {
+                WatchKey key = watchService.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                while (key != null) {
+                    processEvents(key);
+                    key = watchService.poll();
+                }
+            } catch (ClosedWatchServiceException e) {
+                return settled;
+            }
+        }
+    }
+
+    /*
+    Zwraca i zeruje flagę przepełnienia kolejki zdarzeń.
+     */
+    public boolean consumeOverflow() {
+        boolean result = overflow;
+        overflow = false;
+        return result;
+    }
+
+    /*
+    Zwraca i czyści zbiór ścieżek usuniętych od ostatniego wywołania.
+     */
+    public Set<Path> consumeDeleted() {
+        Set<Path> result = new HashSet<>(deleted);
+        deleted.clear();
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private Set<Path> drainSettled(long now) {
+        Set<Path> settled = new HashSet<>();
+        Iterator<Map.Entry<Path, Long>> it = pendingChanges.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (now - entry.getValue() >= debounceNanos) {
+                settled.add(entry.getKey());
+                it.remove();
+            }
+        }
+        return settled;
+    }
+
+    private void processEvents(WatchKey key) {
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            long now = System.nanoTime();
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                pendingChanges.remove(child);
+                deleted.add(child);
+            } else if (Files.isDirectory(child)) {
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+
+                    /*
+                    Nowy katalog: rejestracja i zgłoszenie plików utworzonych przed rejestracją.
+                     */
+                    try {
+                        registerTree(child, true);
+                    } catch (IOException e) {
+                        overflow = true;
+                    }
+                }
+            } else {
+                deleted.remove(child);
+                pendingChanges.put(child, now);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerTree(Path root, boolean reportFiles) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (reportFiles) {
+                    pendingChanges.put(file, System.nanoTime());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,255 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+Ustawienia potoku producent/konsument.
+
+Wartości domyślne odpowiadają dotychczasowemu zachowaniu aplikacji: jeden producent,
+dwóch konsumentów i kolejka o pojemności równej liczbie konsumentów.
+Można je nadpisać właściwościami systemowymi (-Danalysis.consumers=8 itd.).
+ */
+public class EngineConfig {
+    private Path directory = Paths.get("files");
+    private Path indexPath = Paths.get(".files-index");
+    private int statistics = 10;
+    private int producers = 1;
+    private int consumers = 2;
+    private int queueCapacity = 0;
+    private boolean virtualThreads = false;
+    private boolean adaptive = false;
+    private int maxConsumers = Runtime.getRuntime().availableProcessors();
+    private boolean watch = true;
+    private String scorer = RawCosineScorer.NAME;
+    private int lshBands = 0;
+    private int lshRows = 4;
+    private int metricsInterval = 0;
+    private Path metricsFile = null;
+    private boolean metricsJson = false;
+    private long streamingThreshold = 0;
+    private int streamingCapacity = 10_000;
+
+    public static EngineConfig fromSystemProperties() {
+        EngineConfig config = new EngineConfig();
+        config.directory = Paths.get(System.getProperty("analysis.directory", config.directory.toString()));
+        config.indexPath = Paths.get(System.getProperty("analysis.index", config.indexPath.toString()));
+        config.statistics = Integer.getInteger("analysis.statistics", config.statistics);
+        config.producers = Integer.getInteger("analysis.producers", config.producers);
+        config.consumers = Integer.getInteger("analysis.consumers", config.consumers);
+        config.queueCapacity = Integer.getInteger("analysis.queueCapacity", config.queueCapacity);
+        config.virtualThreads = Boolean.parseBoolean(System.getProperty("analysis.virtualThreads", "false"));
+        config.adaptive = Boolean.parseBoolean(System.getProperty("analysis.adaptive", "false"));
+        config.maxConsumers = Integer.getInteger("analysis.maxConsumers", config.maxConsumers);
+        config.watch = Boolean.parseBoolean(System.getProperty("analysis.watch", "true"));
+        config.scorer = System.getProperty("analysis.scorer", config.scorer);
+        config.lshBands = Integer.getInteger("analysis.lshBands", config.lshBands);
+        config.lshRows = Integer.getInteger("analysis.lshRows", config.lshRows);
+        config.metricsInterval = Integer.getInteger("analysis.metricsInterval", config.metricsInterval);
+        String metricsFile = System.getProperty("analysis.metricsFile");
+        config.metricsFile = metricsFile == null ? null : Paths.get(metricsFile);
+        config.metricsJson = "json".equalsIgnoreCase(System.getProperty("analysis.metricsFormat", "text"));
+        config.streamingThreshold = Long.getLong("analysis.streamingThreshold", config.streamingThreshold);
+        config.streamingCapacity = Integer.getInteger("analysis.streamingCapacity", config.streamingCapacity);
+        return config;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public EngineConfig setDirectory(Path directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public Path getIndexPath() {
+        return indexPath;
+    }
+
+    public EngineConfig setIndexPath(Path indexPath) {
+        this.indexPath = indexPath;
+        return this;
+    }
+
+    public int getStatistics() {
+        return statistics;
+    }
+
+    public EngineConfig setStatistics(int statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    public int getProducers() {
+        return producers;
+    }
+
+    public EngineConfig setProducers(int producers) {
+        this.producers = Math.max(1, producers);
+        return this;
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    public EngineConfig setConsumers(int consumers) {
+        this.consumers = Math.max(1, consumers);
+        return this;
+    }
+
+    /*
+    Pojemność kolejki. Zero oznacza wartość domyślną: liczbę konsumentów,
+    a w trybie adaptacyjnym dwukrotność maksymalnej liczby konsumentów.
+     */
+    public int getQueueCapacity() {
+        if (queueCapacity > 0) {
+            return queueCapacity;
+        }
+        return adaptive ? 2 * getMaxConsumers() : consumers;
+    }
+
+    public EngineConfig setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public EngineConfig setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public EngineConfig setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this;
+    }
+
+    public int getMaxConsumers() {
+        return Math.max(consumers, maxConsumers);
+    }
+
+    public EngineConfig setMaxConsumers(int maxConsumers) {
+        this.maxConsumers = maxConsumers;
+        return this;
+    }
+
+    /*
+    true - producent obserwuje katalog do zatrzymania, false - jednorazowy przegląd katalogu
+    (tryb wsadowy), po którym konsumenci kończą pracę.
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public EngineConfig setWatch(boolean watch) {
+        this.watch = watch;
+        return this;
+    }
+
+    /*
+    Nazwa miary podobieństwa do pliku referencyjnego (SimilarityScorer.NAMES).
+     */
+    public String getScorer() {
+        return scorer;
+    }
+
+    public EngineConfig setScorer(String scorer) {
+        this.scorer = scorer;
+        return this;
+    }
+
+    /*
+    Liczba pasm filtra MinHash/LSH. Zero wyłącza filtr - podobieństwo liczone jest dla wszystkich plików.
+     */
+    public int getLshBands() {
+        return lshBands;
+    }
+
+    public EngineConfig setLshBands(int lshBands) {
+        this.lshBands = lshBands;
+        return this;
+    }
+
+    public int getLshRows() {
+        return lshRows;
+    }
+
+    public EngineConfig setLshRows(int lshRows) {
+        this.lshRows = lshRows;
+        return this;
+    }
+
+    public boolean isLshEnabled() {
+        return lshBands > 0;
+    }
+
+    /*
+    Co ile sekund zrzucać metryki potoku (PipelineMetrics). Zero wyłącza okresowy zrzut;
+    metryki są wtedy nadal dostępne przez JMX.
+     */
+    public int getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public EngineConfig setMetricsInterval(int metricsInterval) {
+        this.metricsInterval = metricsInterval;
+        return this;
+    }
+
+    /*
+    Plik, do którego dopisywane są zrzuty metryk; null - zrzut trafia do dziennika (Listener.log).
+     */
+    public Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    public EngineConfig setMetricsFile(Path metricsFile) {
+        this.metricsFile = metricsFile;
+        return this;
+    }
+
+    public boolean isMetricsJson() {
+        return metricsJson;
+    }
+
+    public EngineConfig setMetricsJson(boolean metricsJson) {
+        this.metricsJson = metricsJson;
+        return this;
+    }
+
+    /*
+    Rozmiar pliku w bajtach, od którego słowa liczone są w stałej pamięci algorytmem Space-Saving
+    (SpaceSavingCounter) zamiast dokładnie. Zero wyłącza ten tryb.
+     */
+    public long getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    public EngineConfig setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+        return this;
+    }
+
+    /*
+    Liczba słów śledzonych w trybie stałej pamięci; licznik zawyżony jest najwyżej o N / streamingCapacity.
+     */
+    public int getStreamingCapacity() {
+        return streamingCapacity;
+    }
+
+    public EngineConfig setStreamingCapacity(int streamingCapacity) {
+        this.streamingCapacity = streamingCapacity;
+        return this;
+    }
+
+    public boolean isStreamingEnabled() {
+        return streamingThreshold > 0;
+    }
+}
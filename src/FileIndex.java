@@ -0,0 +1,231 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/*
+Trwały indeks przeanalizowanych plików.
+
+Dla każdej ścieżki przechowuje rozmiar, czas modyfikacji, skrót zawartości (CRC32C)
+oraz pełny wektor częstości słów. Plik, którego rozmiar i czas modyfikacji się nie zmieniły,
+nie jest ponownie tokenizowany. Gdy zmienił się tylko czas modyfikacji, o ponownej analizie
+decyduje skrót zawartości.
+
+Wektor policzony w stałej pamięci (SpaceSavingCounter) ma liczności przybliżone - wpis pamięta
+wtedy liczbę śledzonych słów, żeby nie był brany za dokładny ani użyty przy innych ustawieniach.
+Wersja 1 formatu (bez tego pola) jest nadal wczytywana - jej wpisy są dokładne.
+ */
+public class FileIndex {
+    private static final int MAGIC = 0x57494458;
+    private static final int VERSION = 2;
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+
+    public static class Entry {
+        private final long size;
+        private final long modified;
+        private final long hash;
+        private final WordFrequencyMap words;
+        private final int approximateCapacity;
+
+        public Entry(long size, long modified, long hash, WordFrequencyMap words) {
+            this(size, modified, hash, words, 0);
+        }
+
+        public Entry(long size, long modified, long hash, WordFrequencyMap words, int approximateCapacity) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.words = words;
+            this.approximateCapacity = approximateCapacity;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public WordFrequencyMap getWords() {
+            return words;
+        }
+
+        /*
+        Liczba słów śledzonych przy liczeniu przybliżonym; 0 - liczności dokładne.
+         */
+        public int getApproximateCapacity() {
+            return approximateCapacity;
+        }
+
+        public boolean isApproximate() {
+            return approximateCapacity > 0;
+        }
+
+        public boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+    }
+
+    private final Path indexFile;
+    private final ConcurrentHashMap<Path, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    public FileIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /*
+    Wczytuje indeks z dysku. Brak pliku oznacza pusty indeks.
+     */
+    public static FileIndex load(Path indexFile) throws IOException {
+        FileIndex index = new FileIndex(indexFile);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            int version;
+            if (in.readInt() != MAGIC || (version = in.readInt()) < 1 || version > VERSION) {
+                throw new IOException("Nieobsługiwany format indeksu " + indexFile);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Path path = Path.of(readString(in));
+                long size = in.readLong();
+                long modified = in.readLong();
+                long hash = in.readLong();
+                int approximateCapacity = version >= 2 ? in.readInt() : 0;
+                int wordCount = in.readInt();
+                WordFrequencyMap words = new WordFrequencyMap(wordCount);
+                for (int w = 0; w < wordCount; w++) {
+                    String word = readString(in);
+                    words.add(word, in.readLong());
+                }
+                index.entries.put(path, new Entry(size, modified, hash, words, approximateCapacity));
+            }
+        } catch (NoSuchFileException e) {
+            return index;
+        }
+        return index;
+    }
+
+    public static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    public Entry get(Path file) {
+        return entries.get(key(file));
+    }
+
+    public void put(Path file, Entry entry) {
+        entries.put(key(file), entry);
+        dirty = true;
+    }
+
+    public void remove(Path file) {
+        if (entries.remove(key(file)) != null) {
+            dirty = true;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void forEach(BiConsumer<Path, Entry> consumer) {
+        entries.forEach(consumer);
+    }
+
+    /*
+    Usuwa wpisy plików z katalogu root (w postaci key), których nie znaleziono podczas ostatniego
+    przeglądu. Wpisy spoza root - inne katalogi i pliki referencyjne dzielące ten sam indeks - zostają.
+     */
+    public void retainOnly(Path root, Set<Path> existing) {
+        if (entries.keySet().removeIf(path -> path.startsWith(root) && !existing.contains(path))) {
+            dirty = true;
+        }
+    }
+
+    /*
+    Zapis do pliku tymczasowego i atomowa podmiana, aby przerwany zapis nie uszkodził indeksu.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                List<Map.Entry<Path, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<Path, Entry> mapEntry : snapshot) {
+                    Entry entry = mapEntry.getValue();
+                    writeString(out, mapEntry.getKey().toString());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeLong(entry.hash);
+                    out.writeInt(entry.approximateCapacity);
+                    out.writeInt(entry.words.size());
+                    for (int w = 0; w < entry.words.size(); w++) {
+                        writeString(out, entry.words.wordAt(w));
+                        out.writeLong(entry.words.countAt(w));
+                    }
+                }
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    public static long contentHash(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /*
+    Długość + bajty UTF-8, bo writeUTF nie przyjmuje napisów dłuższych niż 64 KB.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/*
+Wczytywanie plików tekstowych do tokenizera.
+
+Małe pliki czytane są zwykłym BufferedReaderem. Pliki od progu mmapThreshold są mapowane
+w pamięć (FileChannel.map) oknami i dekodowane z UTF-8 bezpośrednio do jednego bufora znaków,
+bez tworzenia obiektów String dla linii. Przy liczeniu słów pliki od progu parallelThreshold
+dzielone są na zakresy liczone równolegle przez ParallelWordCounter.
+
+Przy okazji tego samego odczytu liczony jest skrót CRC32C zawartości (Result.getHash) -
+ten sam co FileIndex.contentHash - więc indeks plików nie musi czytać pliku drugi raz.
+ */
+public class FileIngestor {
+    public static final long DEFAULT_MMAP_THRESHOLD = 16L * 1024 * 1024;
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    public enum Mode {
+        STREAM("strumień"),
+        MMAP("mmap"),
+        PARALLEL("mmap równolegle");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static class Result {
+        private final Mode mode;
+        private final long bytes;
+        private final long nanos;
+        private final long hash;
+
+        public Result(Mode mode, long bytes, long nanos, long hash) {
+            this.mode = mode;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.hash = hash;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /*
+        CRC32C odczytanych bajtów.
+         */
+        public long getHash() {
+            return hash;
+        }
+
+        public double throughputMBps() {
+            return nanos == 0 ? 0.0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f MB/s (%s, %d B)", throughputMBps(), mode, bytes);
+        }
+    }
+
+    private final long mmapThreshold;
+    private final long parallelThreshold;
+    private final ParallelWordCounter parallelCounter;
+
+    public FileIngestor() {
+        this(DEFAULT_MMAP_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    public FileIngestor(long mmapThreshold, long parallelThreshold, ForkJoinPool pool) {
+        this.mmapThreshold = mmapThreshold;
+        this.parallelThreshold = parallelThreshold;
+        this.parallelCounter = new ParallelWordCounter(pool);
+    }
+
+    /*
+    Zlicza słowa pliku do podanego słownika, wybierając ścieżkę odczytu według rozmiaru pliku.
+     */
+    public Result count(Path path, WordFrequencyMap into) throws IOException {
+        final long start = System.nanoTime();
+        final long size = Files.size(path);
+        if (size < parallelThreshold) {
+            return ingest(path, new WordTokenizer(into));
+        }
+
+        long hash;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            hash = parallelCounter.count(channel, into);
+        }
+        return new Result(Mode.PARALLEL, size, System.nanoTime() - start, hash);
+    }
+
+    public Result ingest(Path path, WordTokenizer tokenizer) throws IOException {
+        final long start = System.nanoTime();
+        final long size = Files.size(path);
+        CRC32C crc = new CRC32C();
+        if (size < mmapThreshold) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new CheckedInputStream(Files.newInputStream(path), crc), StandardCharsets.UTF_8.newDecoder()))) {
+                tokenizer.tokenize(reader);
+            }
+            return new Result(Mode.STREAM, size, System.nanoTime() - start, crc.getValue());
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            decodeRange(channel, 0, channel.size(), tokenizer, crc);
+        }
+        return new Result(Mode.MMAP, size, System.nanoTime() - start, crc.getValue());
+    }
+
+    /*
+    Dekoduje bajty [start, end) kanału i przekazuje znaki do tokenizera.
+    Niedokończona sekwencja UTF-8 na końcu okna jest mapowana ponownie na początku następnego.
+    Błędne dane zgłaszane są wyjątkiem, tak samo jak przy Files.newBufferedReader.
+    Zdekodowana część każdego okna (bez ponownie mapowanej końcówki) dopisywana jest do crc,
+    więc każdy bajt zakresu trafia do skrótu dokładnie raz.
+     */
+    static void decodeRange(FileChannel channel, long start, long end, WordTokenizer tokenizer, CRC32C crc) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+        long position = start;
+        while (position < end) {
+            long length = Math.min(MAP_WINDOW, end - position);
+            boolean last = position + length >= end;
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            while (true) {
+                CoderResult result = decoder.decode(in, out, last);
+                drain(out, tokenizer);
+                if (result.isOverflow()) {
+                    continue;
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                break;
+            }
+            crc.update(in.duplicate().flip());
+            position += in.position();
+            if (last) {
+                break;
+            }
+        }
+
+        decoder.flush(out);
+        drain(out, tokenizer);
+        tokenizer.finish();
+    }
+
+    private static void drain(CharBuffer out, WordTokenizer tokenizer) {
+        out.flip();
+        tokenizer.feed(out.array(), out.arrayOffset() + out.position(), out.remaining());
+        out.clear();
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+Strumień bajtów rosnącego pliku (jak tail -f).
+
+Po dojściu do końca pliku read() nie zwraca -1, tylko co pollMillis sprawdza, czy plik urósł.
+Przed każdym uśpieniem wywoływane jest onIdle - w wątku czytającym, więc może ono bezpiecznie
+korzystać ze stanu budowanego przez czytelnika. Plik skrócony (np. przez rotację logu)
+czytany jest ponownie od początku. Koniec strumienia następuje dopiero po stop() albo przerwaniu wątku.
+
+available() zwraca tylko liczbę bajtów już dopisanych do pliku, dzięki czemu InputStreamReader
+nie blokuje się w oczekiwaniu na więcej danych, gdy ma już coś do zdekodowania.
+ */
+public class FollowInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long pollMillis;
+    private final Runnable onIdle;
+    private volatile boolean stopped;
+
+    public FollowInputStream(Path path, long pollMillis, Runnable onIdle) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.pollMillis = pollMillis;
+        this.onIdle = onIdle;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, length));
+            if (read > 0) {
+                return read;
+            }
+            if (channel.size() < channel.position()) {
+                channel.position(0);
+                continue;
+            }
+            if (stopped) {
+                return -1;
+            }
+            onIdle.run();
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - channel.position()));
+    }
+
+    /*
+    Kończy śledzenie: read() zwróci -1 po odczytaniu danych dopisanych do tej pory.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,366 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+Tryb wsadowy bez interfejsu graficznego.
+
+Jednorazowo przegląda katalog tym samym silnikiem co MainFrame, wypisuje statystykę słów
+i podobieństwo każdego pliku w miarę przetwarzania, a na końcu ranking podobieństwa.
+Z opcją --query po przeglądzie wypisywane jest --top plików korpusu najbardziej podobnych
+do pliku zapytania (rekordy query), a z opcją --all-pairs podobieństwo wszystkich par plików
+o wartości co najmniej --threshold zapisywane jest do osobnego pliku CSV lub binarnego.
+Wyniki trafiają na standardowe wyjście lub do pliku, komunikaty postępu na standardowe wyjście błędów.
+
+Z opcją --stream zamiast katalogu czytany jest jeden strumień (plik albo "-" - standardowe wejście)
+o dowolnej długości, a --top najczęstszych słów liczonych jest w stałej pamięci (SpaceSavingCounter,
+--capacity śledzonych słów albo --epsilon - dopuszczalny błąd względny licznika). Rekordy heavy
+oznaczają liczności przybliżone. Z --follow plik śledzony jest jak w tail -f do przerwania (Ctrl+C),
+a ranking wypisywany jest po każdej porcji nowych danych albo co --report-interval sekund.
+Opcja --streaming-threshold włącza ten sam sposób liczenia w silniku dla plików od podanego rozmiaru.
+
+Użycie:
+  java HeadlessMain <katalog> [--reference plik] [--format tsv|json] [--output plik]
+                    [--statistics n] [--producers n] [--consumers n] [--queue n]
+                    [--virtual-threads] [--adaptive] [--index plik] [--quiet]
+                    [--query plik] [--top k]
+                    [--all-pairs plik] [--threshold x] [--pairs-format csv|binary]
+                    [--scorer cosine|tfidf|jaccard|bm25] [--lsh-bands n] [--lsh-rows n]
+                    [--metrics] [--metrics-interval s] [--metrics-file plik] [--metrics-format text|json]
+                    [--streaming-threshold bajty] [--capacity k | --epsilon e]
+  java HeadlessMain --stream plik|- [--follow] [--top k] [--capacity k | --epsilon e]
+                    [--report-interval s] [--format tsv|json] [--output plik] [--quiet]
+
+Z --metrics (lub którąkolwiek opcją --metrics-*) na końcu wypisywany jest zrzut metryk potoku.
+ */
+public class HeadlessMain {
+    private static final long FOLLOW_POLL_MILLIS = 500;
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Błąd: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+    }
+
+    static int run(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Nie podano katalogu do analizy");
+        }
+
+        EngineConfig config = new EngineConfig().setWatch(false);
+        Path reference = null;
+        Path query = null;
+        int top = 10;
+        Path allPairsOutput = null;
+        double threshold = 0.0;
+        AllPairsSimilarity.Format pairsFormat = AllPairsSimilarity.Format.CSV;
+        Path output = null;
+        ResultWriter.Format format = ResultWriter.Format.TSV;
+        boolean quiet = false;
+        boolean metrics = false;
+        Path directory = null;
+        String stream = null;
+        boolean follow = false;
+        int reportInterval = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--reference" -> reference = Paths.get(value(args, ++i, arg));
+                case "--query" -> query = Paths.get(value(args, ++i, arg));
+                case "--top" -> top = number(args, ++i, arg);
+                case "--all-pairs" -> allPairsOutput = Paths.get(value(args, ++i, arg));
+                case "--threshold" -> threshold = decimal(args, ++i, arg);
+                case "--pairs-format" -> pairsFormat = parsePairsFormat(value(args, ++i, arg));
+                case "--format" -> format = parseFormat(value(args, ++i, arg));
+                case "--output" -> output = Paths.get(value(args, ++i, arg));
+                case "--statistics" -> config.setStatistics(number(args, ++i, arg));
+                case "--producers" -> config.setProducers(number(args, ++i, arg));
+                case "--consumers" -> config.setConsumers(number(args, ++i, arg));
+                case "--queue" -> config.setQueueCapacity(number(args, ++i, arg));
+                case "--scorer" -> config.setScorer(value(args, ++i, arg));
+                case "--lsh-bands" -> config.setLshBands(number(args, ++i, arg));
+                case "--lsh-rows" -> config.setLshRows(number(args, ++i, arg));
+                case "--metrics" -> metrics = true;
+                case "--metrics-interval" -> {
+                    config.setMetricsInterval(number(args, ++i, arg));
+                    metrics = true;
+                }
+                case "--metrics-file" -> {
+                    config.setMetricsFile(Paths.get(value(args, ++i, arg)));
+                    metrics = true;
+                }
+                case "--metrics-format" -> {
+                    config.setMetricsJson(parseMetricsFormat(value(args, ++i, arg)));
+                    metrics = true;
+                }
+                case "--streaming-threshold" -> config.setStreamingThreshold(longNumber(args, ++i, arg));
+                case "--capacity" -> config.setStreamingCapacity(number(args, ++i, arg));
+                case "--epsilon" -> config.setStreamingCapacity(SpaceSavingCounter.capacityForError(decimal(args, ++i, arg)));
+                case "--stream" -> stream = value(args, ++i, arg);
+                case "--follow" -> follow = true;
+                case "--report-interval" -> reportInterval = number(args, ++i, arg);
+                case "--index" -> config.setIndexPath(Paths.get(value(args, ++i, arg)));
+                case "--virtual-threads" -> config.setVirtualThreads(true);
+                case "--adaptive" -> config.setAdaptive(true);
+                case "--quiet" -> quiet = true;
+                default -> {
+                    if (arg.startsWith("--") || directory != null) {
+                        throw new IllegalArgumentException("Nieznany argument: " + arg);
+                    }
+                    directory = Paths.get(arg);
+                }
+            }
+        }
+        if (stream != null) {
+            if (directory != null) {
+                throw new IllegalArgumentException("Opcji --stream nie można łączyć z katalogiem");
+            }
+            if (follow && "-".equals(stream)) {
+                throw new IllegalArgumentException("--follow wymaga pliku, nie standardowego wejścia");
+            }
+            if (config.getStreamingCapacity() <= 0) {
+                throw new IllegalArgumentException("Liczba śledzonych słów musi być dodatnia");
+            }
+            return stream(stream, follow, config.getStreamingCapacity(), top, reportInterval, output, format, !quiet);
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("Nie podano katalogu do analizy");
+        }
+        if (!Files.isDirectory(directory)) {
+            System.err.println("Katalog " + directory + " nie istnieje lub nie jest katalogiem!");
+            return 1;
+        }
+        config.setDirectory(directory);
+
+        try (ResultWriter writer = new ResultWriter(openOutput(output), format)) {
+            final boolean logProgress = !quiet;
+            AnalysisEngine engine = new AnalysisEngine(config, new AnalysisEngine.Listener() {
+                @Override
+                public void log(String message) {
+                    if (logProgress) {
+                        System.err.print(message);
+                    }
+                }
+
+                @Override
+                public void fileAnalyzed(Path path, WordFrequencyMap topWords) {
+                    writer.writeWords(path.toString(), topWords);
+                }
+
+                @Override
+                public void similarityComputed(CosineSimilarity.SimilarityResults result) {
+                    writer.writeSimilarity(result);
+                }
+            });
+
+            try {
+                if (reference != null) {
+                    engine.setReferenceFile(reference);
+                    engine.setSimilarityMode(true);
+                }
+                engine.start();
+                engine.awaitCompletion();
+                if (metrics) {
+                    if (config.getMetricsFile() == null) {
+                        System.err.print(config.isMetricsJson() ? engine.getMetrics().getJson() + "\n" : engine.getMetrics().getText());
+                    } else {
+                        engine.dumpMetrics();
+                    }
+                }
+                if (reference != null) {
+                    writer.writeRanking(engine.getSortedResults());
+                }
+                if (query != null) {
+                    writer.writeRanking("query", engine.findSimilar(query, top));
+                }
+                if (allPairsOutput != null) {
+                    long start = System.nanoTime();
+                    long pairs = engine.computeAllPairs(threshold, allPairsOutput, pairsFormat);
+                    if (logProgress) {
+                        System.err.printf("Zapisano %d par do %s w %.1f ms%n",
+                                pairs, allPairsOutput, (System.nanoTime() - start) / 1_000_000.0);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                engine.stop();
+                return 1;
+            } finally {
+                engine.shutdown();
+            }
+        } catch (IOException e) {
+            System.err.println("Błąd wejścia/wyjścia: " + e.getMessage());
+            Logger.getLogger(HeadlessMain.class.getName()).log(Level.SEVERE, "Błąd trybu wsadowego", e);
+            return 1;
+        }
+        return 0;
+    }
+
+    /*
+    Najczęstsze słowa strumienia liczone w stałej pamięci. Tokenizer, licznik i raporty działają
+    w jednym wątku (czytającym), a przy --follow zamknięcie programu (Ctrl+C) kończy odczyt
+    i czeka na wypisanie ostatniego rankingu.
+     */
+    private static int stream(String source, boolean follow, int capacity, int top, int reportInterval,
+                              Path output, ResultWriter.Format format, boolean logProgress) {
+        boolean stdin = "-".equals(source);
+        if (!stdin && !Files.isRegularFile(Paths.get(source))) {
+            System.err.println("Plik " + source + " nie istnieje lub nie jest zwykłym plikiem!");
+            return 1;
+        }
+        String name = stdin ? "stdin" : source;
+        SpaceSavingCounter counter = new SpaceSavingCounter(capacity);
+        CountDownLatch finished = new CountDownLatch(1);
+        try (ResultWriter writer = new ResultWriter(openOutput(output), format)) {
+            long intervalNanos = reportInterval * 1_000_000_000L;
+            long[] reported = {0, System.nanoTime() + intervalNanos};
+            Runnable report = () -> {
+                writer.writeHeavyHitters(name, counter.topN(top));
+                reported[0] = counter.total();
+                reported[1] = System.nanoTime() + intervalNanos;
+                if (logProgress) {
+                    System.err.printf("Słów: %d, śledzonych: %d, maks. błąd licznika: %d (%s)%n",
+                            counter.total(), counter.capacity(), counter.errorBound(),
+                            counter.isApproximate() ? "liczności przybliżone" : "liczności dokładne");
+                }
+            };
+
+            /*
+            Raport okresowy sprawdzany co 65536 słów, a przy --follow także w przerwach
+            w dopisywaniu do pliku - wtedy bez --report-interval po każdej porcji nowych danych.
+             */
+            WordTokenizer tokenizer = new WordTokenizer((buffer, length) -> {
+                counter.accept(buffer, length);
+                if (reportInterval > 0 && (counter.total() & 0xFFFF) == 0 && System.nanoTime() >= reported[1]) {
+                    report.run();
+                }
+            });
+            Runnable onIdle = () -> {
+                if (counter.total() != reported[0] && (reportInterval == 0 || System.nanoTime() >= reported[1])) {
+                    report.run();
+                }
+            };
+
+            InputStream in;
+            if (follow) {
+                FollowInputStream following = new FollowInputStream(Paths.get(source), FOLLOW_POLL_MILLIS, onIdle);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    following.stop();
+                    try {
+                        finished.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "stream-shutdown"));
+                in = following;
+            } else {
+                in = stdin ? System.in : Files.newInputStream(Paths.get(source));
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                tokenizer.tokenize(reader);
+            }
+            report.run();
+        } catch (IOException e) {
+            System.err.println("Błąd wejścia/wyjścia: " + e.getMessage());
+            Logger.getLogger(HeadlessMain.class.getName()).log(Level.SEVERE, "Błąd trybu strumieniowego", e);
+            return 1;
+        } finally {
+            finished.countDown();
+        }
+        return 0;
+    }
+
+    private static Writer openOutput(Path output) throws IOException {
+        if (output == null) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Brak wartości dla " + option);
+        }
+        return args[index];
+    }
+
+    private static int number(String[] args, int index, String option) {
+        try {
+            return Integer.parseInt(value(args, index, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba dla " + option + ": " + args[index]);
+        }
+    }
+
+    private static long longNumber(String[] args, int index, String option) {
+        try {
+            return Long.parseLong(value(args, index, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba dla " + option + ": " + args[index]);
+        }
+    }
+
+    private static double decimal(String[] args, int index, String option) {
+        try {
+            return Double.parseDouble(value(args, index, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Niepoprawna liczba dla " + option + ": " + args[index]);
+        }
+    }
+
+    private static AllPairsSimilarity.Format parsePairsFormat(String value) {
+        try {
+            return AllPairsSimilarity.Format.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieznany format par: " + value + " (dostępne: csv, binary)");
+        }
+    }
+
+    private static boolean parseMetricsFormat(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "text" -> false;
+            case "json" -> true;
+            default -> throw new IllegalArgumentException("Nieznany format metryk: " + value + " (dostępne: text, json)");
+        };
+    }
+
+    private static ResultWriter.Format parseFormat(String value) {
+        try {
+            return ResultWriter.Format.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieznany format: " + value + " (dostępne: tsv, json)");
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Użycie: java HeadlessMain <katalog> [--reference plik] [--format tsv|json] [--output plik]");
+        System.err.println("                          [--statistics n] [--producers n] [--consumers n] [--queue n]");
+        System.err.println("                          [--virtual-threads] [--adaptive] [--index plik] [--quiet]");
+        System.err.println("                          [--query plik] [--top k]");
+        System.err.println("                          [--all-pairs plik] [--threshold x] [--pairs-format csv|binary]");
+        System.err.println("                          [--scorer " + String.join("|", SimilarityScorer.NAMES) + "]"
+                + " [--lsh-bands n] [--lsh-rows n]");
+        System.err.println("                          [--metrics] [--metrics-interval s] [--metrics-file plik] [--metrics-format text|json]");
+        System.err.println("                          [--streaming-threshold bajty] [--capacity k | --epsilon e]");
+        System.err.println("       java HeadlessMain --stream plik|- [--follow] [--top k] [--capacity k | --epsilon e]");
+        System.err.println("                          [--report-interval s] [--format tsv|json] [--output plik] [--quiet]");
+    }
+}
@@ -0,0 +1,270 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+Indeks odwrócony korpusu: identyfikator terminu -> lista (dokument, liczność).
+
+Normy dokumentów są zapamiętane, więc zapytanie o k najbardziej podobnych dokumentów
+sumuje iloczyny skalarne tylko po listach terminów zapytania i wybiera wynik kopcem
+o rozmiarze k. Dokumenty, których w zapytaniu nie ma żadnego wspólnego terminu, nie są
+w ogóle odwiedzane.
+
+Zmieniony plik dodawany jest jako nowy dokument, a poprzednia wersja oznaczana jako usunięta.
+Gdy usuniętych wpisów jest więcej niż aktywnych, listy są przebudowywane bez nich.
+ */
+public class InvertedIndex {
+    private static final int INITIAL_POSTINGS = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Path, Integer> documentIds = new HashMap<>();
+    private final List<Path> documents = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private double[] norms = new double[64];
+    private int[][] postingDocs = new int[0][];
+    private long[][] postingCounts = new long[0][];
+    private int[] postingSizes = new int[0];
+    private int deletedCount;
+
+    public void addDocument(Path path, SparseVector vector) {
+        Path key = FileIndex.key(path);
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            int doc = documents.size();
+            documents.add(key);
+            documentIds.put(key, doc);
+            if (doc == norms.length) {
+                norms = Arrays.copyOf(norms, norms.length * 2);
+            }
+            norms[doc] = vector.norm();
+            for (int i = 0; i < vector.size(); i++) {
+                append(vector.termIdAt(i), doc, vector.countAt(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDocument(Path path) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(FileIndex.key(path));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    Usuwa dokumenty z katalogu root spoza podanego zbioru ścieżek (w postaci FileIndex.key).
+     */
+    public void retainOnly(Path root, Set<Path> existing) {
+        lock.writeLock().lock();
+        try {
+            for (Path key : new ArrayList<>(documentIds.keySet())) {
+                if (key.startsWith(root) && !existing.contains(key)) {
+                    removeLocked(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+    k dokumentów o największym podobieństwie cosinusowym do zapytania, malejąco.
+    Dokument exclude (np. sam plik zapytania) jest pomijany.
+     */
+    public List<CosineSimilarity.SimilarityResults> topK(SparseVector query, int k, Path exclude) {
+        if (k <= 0 || query.norm() == 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            double[] scores = new double[documents.size()];
+            int[] touched = new int[Math.min(documents.size(), 1024)];
+            int touchedCount = 0;
+            for (int i = 0; i < query.size(); i++) {
+                int term = query.termIdAt(i);
+                if (term >= postingSizes.length) {
+                    continue;
+                }
+                double weight = query.countAt(i);
+                int[] docs = postingDocs[term];
+                long[] counts = postingCounts[term];
+                for (int p = 0; p < postingSizes[term]; p++) {
+                    int doc = docs[p];
+                    if (scores[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, Math.min(documents.size(), touched.length * 2));
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += weight * counts[p];
+                }
+            }
+
+            Integer excluded = exclude == null ? null : documentIds.get(FileIndex.key(exclude));
+            int[] heap = new int[Math.min(k, Math.max(1, touchedCount))];
+            int heapSize = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int doc = touched[t];
+                if (deleted.get(doc) || (excluded != null && excluded == doc) || norms[doc] == 0) {
+                    continue;
+                }
+                scores[doc] /= query.norm() * norms[doc];
+                if (heapSize < heap.length) {
+                    heap[heapSize] = doc;
+                    siftUp(heap, heapSize++, scores);
+                } else if (ranksBefore(doc, heap[0], scores)) {
+                    heap[0] = doc;
+                    siftDown(heap, heapSize, scores);
+                }
+            }
+
+            List<CosineSimilarity.SimilarityResults> results = new ArrayList<>(heapSize);
+            for (int i = 0; i < heapSize; i++) {
+                results.add(null);
+            }
+            for (int i = heapSize - 1; i >= 0; i--) {
+                int doc = heap[0];
+                results.set(i, new CosineSimilarity.SimilarityResults(documents.get(doc).toString(), scores[doc]));
+                heap[0] = heap[i];
+                siftDown(heap, i, scores);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Path key) {
+        Integer doc = documentIds.remove(key);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        if (deletedCount > documentIds.size()) {
+            compact();
+        }
+    }
+
+    /*
+    Przebudowa list bez usuniętych dokumentów i nadanie dokumentom nowych, gęstych identyfikatorów.
+     */
+    private void compact() {
+        int[] remap = new int[documents.size()];
+        List<Path> liveDocuments = new ArrayList<>(documentIds.size());
+        double[] liveNorms = new double[Math.max(64, documentIds.size() * 2)];
+        for (int doc = 0; doc < documents.size(); doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = liveDocuments.size();
+                liveNorms[liveDocuments.size()] = norms[doc];
+                liveDocuments.add(documents.get(doc));
+            }
+        }
+        for (int term = 0; term < postingSizes.length; term++) {
+            int size = 0;
+            for (int p = 0; p < postingSizes[term]; p++) {
+                int doc = remap[postingDocs[term][p]];
+                if (doc >= 0) {
+                    postingDocs[term][size] = doc;
+                    postingCounts[term][size] = postingCounts[term][p];
+                    size++;
+                }
+            }
+            postingSizes[term] = size;
+        }
+        documents.clear();
+        documents.addAll(liveDocuments);
+        documentIds.clear();
+        for (int doc = 0; doc < documents.size(); doc++) {
+            documentIds.put(documents.get(doc), doc);
+        }
+        norms = liveNorms;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void append(int term, int doc, long count) {
+        if (term >= postingSizes.length) {
+            int capacity = Math.max(term + 1, postingSizes.length * 2);
+            postingDocs = Arrays.copyOf(postingDocs, capacity);
+            postingCounts = Arrays.copyOf(postingCounts, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+        int size = postingSizes[term];
+        if (postingDocs[term] == null) {
+            postingDocs[term] = new int[INITIAL_POSTINGS];
+            postingCounts[term] = new long[INITIAL_POSTINGS];
+        } else if (size == postingDocs[term].length) {
+            postingDocs[term] = Arrays.copyOf(postingDocs[term], size * 2);
+            postingCounts[term] = Arrays.copyOf(postingCounts[term], size * 2);
+        }
+        postingDocs[term][size] = doc;
+        postingCounts[term][size] = count;
+        postingSizes[term] = size + 1;
+    }
+
+    /*
+    Kopiec minimalny - w korzeniu najsłabszy z k najlepszych dokumentów.
+     */
+    private static boolean ranksBefore(int a, int b, double[] scores) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a < b;
+    }
+
+    private static void siftUp(int[] heap, int index, double[] scores) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], doc, scores)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, double[] scores) {
+        if (heapSize == 0) {
+            return;
+        }
+        int index = 0;
+        int doc = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBefore(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!ranksBefore(doc, heap[child], scores)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+}
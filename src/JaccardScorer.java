@@ -0,0 +1,36 @@
+/*
+Współczynnik Jaccarda zbiorów słów: |A ∩ B| / |A ∪ B|, bez względu na liczności.
+ */
+public class JaccardScorer implements SimilarityScorer {
+    public static final String NAME = "jaccard";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public double score(SparseVector query, SparseVector document) {
+        int union = query.size() + document.size();
+        if (union == 0) {
+            return 0.0;
+        }
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < query.size() && j < document.size()) {
+            int a = query.termIdAt(i);
+            int b = document.termIdAt(j);
+            if (a == b) {
+                common++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (union - common);
+    }
+}
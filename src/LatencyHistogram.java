@@ -0,0 +1,98 @@
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Histogram czasów w przedziałach potęg dwójki (przedział b to czasy od 2^(b-1) do 2^b - 1 ns).
+
+Zapis to kilka dodawań do LongAdder, więc wiele wątków może zapisywać równocześnie bez
+wspólnej blokady. Percentyle są przybliżone górną granicą przedziału - dokładność do 2x
+wystarcza, by odróżnić mikrosekundy od milisekund.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(nanos))].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) totalNanos.sum() / n;
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /*
+    Górna granica przedziału, w którym leży percentyl (0 < percentile <= 1).
+     */
+    public long percentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : Math.min(maxNanos(), (1L << i) - 1);
+            }
+        }
+        return maxNanos();
+    }
+
+    public String toText() {
+        return String.format(Locale.ROOT, "n=%d śr=%s p50<=%s p99<=%s max=%s", count(),
+                format(meanNanos()), format(percentileNanos(0.5)), format(percentileNanos(0.99)), format(maxNanos()));
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\":%d,\"totalMillis\":%.3f,\"meanMicros\":%.3f,\"p50Micros\":%.3f,\"p99Micros\":%.3f,\"maxMicros\":%.3f}",
+                count(), totalNanos() / 1e6, meanNanos() / 1e3, percentileNanos(0.5) / 1e3,
+                percentileNanos(0.99) / 1e3, maxNanos() / 1e3);
+    }
+
+    private static String format(double nanos) {
+        if (nanos >= 1e9) {
+            return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+        }
+        if (nanos >= 1e6) {
+            return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.1f µs", nanos / 1e3);
+    }
+}
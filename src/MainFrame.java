@@ -1,37 +1,21 @@
-
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class MainFrame {
     private JFrame frame;
-    private static final String DIR_PATH = "files";
-    private final int statistics;
-    private final AtomicBoolean isRunning;
-    private final int howMuchproducents;
-    private final int howMuchcustomers;
-    private final ExecutorService executor;
-    private final List<Future<?>> producentFuture;
-    private Path referenceFilePath;
-    private Map<String, Long> referenceVector;
-    private boolean useSimilarityMode = false;
+    private final AnalysisEngine engine;
     private JTextArea outputArea;
-    private final List<CosineSimilarity.SimilarityResults> similarityResults = new ArrayList<>();
+    private UiLogSink logSink;
 
     public static void main(String[] args) {
         try {
@@ -52,12 +36,38 @@ public class MainFrame {
     }
 
     public MainFrame() {
-        statistics = 10;
-        isRunning = new AtomicBoolean(false);
-        howMuchproducents = 1;
-        howMuchcustomers = 2;
-        executor = Executors.newFixedThreadPool(howMuchcustomers + howMuchproducents);
-        producentFuture = new ArrayList<>();
+        engine = new AnalysisEngine(EngineConfig.fromSystemProperties(), new AnalysisEngine.Listener() {
+            @Override
+            public void log(String message) {
+                logSink.append(message);
+            }
+
+            /*
+            Wyświetl statystykę wyrazów w interfejsie użytkownika.
+             */
+            @Override
+            public void fileAnalyzed(Path path, WordFrequencyMap wordStats) {
+                final StringBuilder stats = new StringBuilder();
+                stats.append("\nStatystyka wyrazów w pliku ").append(path.getFileName()).append(":\n");
+                if (wordStats.isEmpty()) {
+                    stats.append("  Brak słów w pliku lub wszystkie zostały odfiltrowane\n");
+                } else {
+                    wordStats.forEach((word, count) ->
+                            stats.append("  ").append(word).append(" = ").append(count).append("\n")
+                    );
+                }
+                logSink.append(stats.toString());
+            }
+
+            /*
+            Wyświetlanie wyników podobieństwa w interfejsie użytkownika.
+             */
+            @Override
+            public void similarityComputed(CosineSimilarity.SimilarityResults result) {
+                logSink.append("  Podobieństwo do pliku referencyjnego: " +
+                        String.format("%.4f", result.getSimilarityScore()) + "\n");
+            }
+        });
         initialize();
     }
 
@@ -66,7 +76,8 @@ public class MainFrame {
         frame.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                executor.shutdownNow();
+                engine.shutdown();
+                logSink.close();
             }
         });
         frame.setBounds(100, 100, 800, 600);
@@ -82,14 +93,28 @@ public class MainFrame {
         JCheckBox similarityModeCheckBox = getJCheckBox();
         controlPanel.add(similarityModeCheckBox);
 
+        JComboBox<String> scorerComboBox = new JComboBox<>(SimilarityScorer.NAMES.toArray(new String[0]));
+        scorerComboBox.setSelectedItem(engine.getScorer().name());
+        scorerComboBox.setToolTipText("Miara podobieństwa do pliku referencyjnego");
+        scorerComboBox.addActionListener(_ -> {
+            engine.setScorer((String) scorerComboBox.getSelectedItem());
+            logSink.append("Miara podobieństwa: " + engine.getScorer().name() + " (wyniki wyczyszczone)\n");
+        });
+        controlPanel.add(scorerComboBox);
+
+        JButton findSimilarButton = new JButton("Znajdź podobne (top-K)");
+        findSimilarButton.addActionListener(_ -> findSimilarFiles());
+        controlPanel.add(findSimilarButton);
+
+        JButton allPairsButton = new JButton("Podobieństwo wszystkich par");
+        allPairsButton.addActionListener(_ -> computeAllPairs());
+        controlPanel.add(allPairsButton);
+
         JPanel buttonPanel = new JPanel();
         frame.getContentPane().add(buttonPanel, BorderLayout.SOUTH);
 
         JButton btnStart = new JButton("Start");
-        btnStart.addActionListener(_ -> {
-            similarityResults.clear();
-            getMultiThreadedStatistics();
-        });
+        btnStart.addActionListener(_ -> getMultiThreadedStatistics());
         buttonPanel.add(btnStart);
 
 
@@ -98,36 +123,56 @@ public class MainFrame {
         outputArea.setEditable(false);
         JScrollPane scrollPane = new JScrollPane(outputArea);
         frame.getContentPane().add(scrollPane, BorderLayout.CENTER);
-        outputArea.append("Rozpoczynanie analizy plików tekstowych...\n");
+        logSink = createLogSink();
+        logSink.append("Rozpoczynanie analizy plików tekstowych...\n");
 
         JButton btnStop = new JButton("Stop");
-        btnStop.addActionListener(_ -> {
-            isRunning.set(true);
-            for (Future<?> future : producentFuture) {
-                future.cancel(true);
-            }
-        });
+        btnStop.addActionListener(_ -> engine.stop());
         buttonPanel.add(btnStop);
 
         JButton btnShowResults = new JButton("Pokaż wyniki podobieństwa");
         btnShowResults.addActionListener(_ -> displaySortedResults());
         buttonPanel.add(btnShowResults);
 
+        JButton btnMetrics = new JButton("Metryki");
+        btnMetrics.addActionListener(_ -> logSink.append(engine.getMetrics().getText()));
+        buttonPanel.add(btnMetrics);
+
         JButton btnClose = new JButton("Zamknij");
         btnClose.addActionListener(_ -> {
-            executor.shutdownNow();
+            engine.shutdown();
+            logSink.close();
             frame.dispose();
         });
         buttonPanel.add(btnClose);
     }
 
+    /*
+    Komunikaty z wątków roboczych trafiają do pola tekstowego paczkami, z limitem linii.
+    Pełny dziennik można zapisywać do pliku wskazanego właściwością analysis.logFile.
+     */
+    private UiLogSink createLogSink() {
+        int maxLines = Integer.getInteger("analysis.maxLogLines", UiLogSink.DEFAULT_MAX_LINES);
+        UiLogSink sink = new UiLogSink(outputArea, maxLines, UiLogSink.DEFAULT_FRAMES_PER_SECOND);
+        String logFile = System.getProperty("analysis.logFile");
+        if (logFile != null) {
+            try {
+                sink.spillTo(Paths.get(logFile));
+            } catch (IOException e) {
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, "Błąd otwierania pliku dziennika", e);
+                sink.append("Błąd otwierania pliku dziennika: " + e.getMessage() + "\n");
+            }
+        }
+        return sink;
+    }
+
     private JCheckBox getJCheckBox() {
         JCheckBox similarityModeCheckBox = new JCheckBox("Tryb podobieństwa");
         similarityModeCheckBox.addActionListener(_ -> {
-            useSimilarityMode = similarityModeCheckBox.isSelected();
-            if (useSimilarityMode && referenceFilePath == null) {
+            engine.setSimilarityMode(similarityModeCheckBox.isSelected());
+            if (engine.isSimilarityMode() && engine.getReferenceFile() == null) {
                 similarityModeCheckBox.setSelected(false);
-                useSimilarityMode = false;
+                engine.setSimilarityMode(false);
                 JOptionPane.showMessageDialog(frame, "Najpierw wybierz plik referencyjny!", "OSTRZEŻENIE!", JOptionPane.WARNING_MESSAGE);
             }
         });
@@ -135,28 +180,34 @@ public class MainFrame {
     }
 
 
+    /*
+    Wyświetla ranking z bieżącego widoku najlepszych wyników, najwyżej analysis.displayLimit pozycji.
+     */
     private void displaySortedResults() {
-        outputArea.append("Liczba wyników podobieństwa: " + similarityResults.size() + "\n");
+        int limit = Integer.getInteger("analysis.displayLimit", 1000);
+        int total = engine.getResultCount();
+        List<CosineSimilarity.SimilarityResults> similarityResults = engine.getTopResults(limit);
+        StringBuilder text = new StringBuilder();
+        text.append("Liczba wyników podobieństwa: ").append(total).append("\n");
         if (similarityResults.isEmpty()) {
-            outputArea.append("Brak wyników podobieństwa do wyświetlenia.\n");
+            text.append("Brak wyników podobieństwa do wyświetlenia.\n");
+            logSink.append(text.toString());
             return;
         }
 
-
-        /*
-        Sortowanie wyników podobieństwa.
-         */
-        Collections.sort(similarityResults);
-
-        outputArea.append("\n===== POSORTOWANE WYNIKI PODOBIEŃSTWA =====\n");
+        text.append("\n===== POSORTOWANE WYNIKI PODOBIEŃSTWA =====\n");
         for (CosineSimilarity.SimilarityResults result : similarityResults) {
-            outputArea.append(result.toString() + "\n");
+            text.append(result).append("\n");
         }
-        outputArea.append("=======================================\n");
+        if (total > similarityResults.size()) {
+            text.append("... i ").append(total - similarityResults.size()).append(" kolejnych\n");
+        }
+        text.append("=======================================\n");
+        logSink.append(text.toString());
     }
 
-    private void selectReferenceFile() {
-        JFileChooser fileChooser = new JFileChooser(DIR_PATH);
+    private JFileChooser createTextFileChooser() {
+        JFileChooser fileChooser = new JFileChooser(engine.getConfig().getDirectory().toFile());
         fileChooser.setFileFilter(new FileFilter() {
             @Override
             public boolean accept(File f) {
@@ -168,46 +219,105 @@ public class MainFrame {
                 return "Pliki tekstowe (*.txt)";
             }
         });
+        return fileChooser;
+    }
+
+    private void selectReferenceFile() {
+        JFileChooser fileChooser = createTextFileChooser();
         int result = fileChooser.showOpenDialog(frame);
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
-            referenceFilePath = selectedFile.toPath();
-            outputArea.setText("Wybrano plik referencyjny: " + selectedFile.getName() + "\n");
+            logSink.clear();
+            logSink.append("Wybrano plik referencyjny: " + selectedFile.getName() + "\n");
 
             /*
-            Czyszczenie wyników podobieństwa, gdy wybierzemy plik na nowo.
+            Wczytanie pliku referyncyjnego i czyszczenie wyników podobieństwa, gdy wybierzemy plik na nowo.
              */
-            similarityResults.clear();
+            try {
+                engine.setReferenceFile(selectedFile.toPath());
+                logSink.append("Wczytano wektor referencyjny z " + selectedFile.getName() + "\n");
+            } catch (Exception e) {
+                logSink.append("Błąd wczytywania pliku referencyjnego: " + e.getMessage() + "\n");
+            }
+        }
+    }
 
 
 
-            /*
-            Wczytanie pliku referyncyjnego.
-             */
-            try {
-                referenceVector = getLinkedCountedWord(referenceFilePath, 0);
-                outputArea.append("Wczytano wektor referencyjny z " + selectedFile.getName() + "\n");
-            } catch (Exception e) {
-                outputArea.append("Błąd wczytywania pliku referencyjnego: " + e.getMessage() + "\n");
+    /*
+    Wyszukanie w całym przeanalizowanym korpusie k plików najbardziej podobnych do wybranego pliku.
+    Liczbę wyników można zmienić właściwością analysis.topK.
+     */
+    private void findSimilarFiles() {
+        if (engine.getCorpusSize() == 0) {
+            JOptionPane.showMessageDialog(frame, "Korpus jest pusty - najpierw uruchom analizę katalogu!", "OSTRZEŻENIE!", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser fileChooser = createTextFileChooser();
+        if (fileChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File selectedFile = fileChooser.getSelectedFile();
+        int k = Integer.getInteger("analysis.topK", 10);
+        try {
+            long start = System.nanoTime();
+            List<CosineSimilarity.SimilarityResults> similar = engine.findSimilar(selectedFile.toPath(), k);
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("\n===== %d PLIKÓW NAJBARDZIEJ PODOBNYCH DO %s (%d w korpusie, %.2f ms) =====\n",
+                    similar.size(), selectedFile.getName(), engine.getCorpusSize(), millis));
+            for (CosineSimilarity.SimilarityResults result : similar) {
+                text.append(result).append("\n");
             }
+            text.append("=======================================\n");
+            logSink.append(text.toString());
+        } catch (IOException e) {
+            logSink.append("Błąd wczytywania pliku zapytania: " + e.getMessage() + "\n");
         }
     }
 
+    /*
+    Zapis podobieństwa wszystkich par plików do CSV (lub binarnie dla rozszerzenia .bin).
+    Liczone w osobnym wątku, próg z właściwości analysis.pairThreshold.
+     */
+    private void computeAllPairs() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("podobienstwo.csv"));
+        if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path output = fileChooser.getSelectedFile().toPath();
+        AllPairsSimilarity.Format format = output.getFileName().toString().toLowerCase().endsWith(".bin")
+                ? AllPairsSimilarity.Format.BINARY : AllPairsSimilarity.Format.CSV;
+        double threshold = Double.parseDouble(System.getProperty("analysis.pairThreshold", "0.5"));
 
+        Thread worker = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                long pairs = engine.computeAllPairs(threshold, output, format);
+                logSink.append(String.format("Zapisano %d par o podobieństwie >= %.2f do %s (%.1f ms)\n",
+                        pairs, threshold, output.getFileName(), (System.nanoTime() - start) / 1_000_000.0));
+            } catch (IOException e) {
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, "Błąd zapisu podobieństwa par", e);
+                logSink.append("Błąd zapisu podobieństwa par: " + e.getMessage() + "\n");
+            }
+        }, "all-pairs");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
     private void getMultiThreadedStatistics() {
-        for (Future<?> f : producentFuture) {
-            if (!f.isDone()) {
-                JOptionPane.showMessageDialog(frame, "Nie można uruchomić nowego zadania! Przynajmniej jeden producent nadal działa!", "OSTRZEŻENIE!", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
+        if (engine.isProducerRunning()) {
+            JOptionPane.showMessageDialog(frame, "Nie można uruchomić nowego zadania! Przynajmniej jeden producent nadal działa!", "OSTRZEŻENIE!", JOptionPane.WARNING_MESSAGE);
+            return;
         }
 
-        if (useSimilarityMode && referenceVector == null) {
+        if (engine.isSimilarityMode() && !engine.hasReferenceVector()) {
             try {
-                referenceVector = getLinkedCountedWord(referenceFilePath, 0);
-                outputArea.append("Wczytano wektor referencyjny z pliku: " +
-                        referenceFilePath.getFileName() + "\n");
+                engine.setReferenceFile(engine.getReferenceFile());
+                logSink.append("Wczytano wektor referencyjny z pliku: " +
+                        engine.getReferenceFile().getFileName() + "\n");
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(frame,
                         "Błąd wczytywania pliku referencyjnego: " + e.getMessage(),
@@ -216,225 +326,6 @@ public class MainFrame {
             }
         }
 
-        isRunning.set(false);
-        producentFuture.clear();
-        similarityResults.clear();
-
-        final BlockingQueue<Optional<Path>> queue = new LinkedBlockingQueue<>(howMuchcustomers);
-
-        /*
-        Wątek producenta.
-         */
-        Runnable producentThread = getRunnable(queue);
-
-        /*
-        Wątek konsumenta.
-         */
-        Runnable consumentThread = createConsumer(queue);
-
-        for (int i = 0; i < howMuchproducents; i++) {
-            Future<?> f = executor.submit(producentThread);
-            producentFuture.add(f);
-        }
-
-
-        for (int i = 0; i < howMuchcustomers; i++) {
-            executor.submit(consumentThread);
-        }
-    }
-
-    private Runnable getRunnable(BlockingQueue<Optional<Path>> queue) {
-        final int delay = 60;
-
-        return () -> {
-            final String name = Thread.currentThread().getName();
-            final String info = String.format("Producent: %s uruchomiony...\n", name);
-            SwingUtilities.invokeLater(() -> outputArea.append(info));
-
-            while (!Thread.currentThread().isInterrupted()) {
-                if (isRunning.get()) {
-
-                    /*
-                    Wstawianie poison pills do kolejki, aby zakończyć działanie konsumentów.
-                     */
-                    for (int i = 0; i < howMuchcustomers; i++) {
-                        try {
-                            queue.put(Optional.empty());
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            final String interruptInfo = String.format("Producent: %s przerwany podczas wysyłania poison pills\n", name);
-                            SwingUtilities.invokeLater(() -> outputArea.append(interruptInfo));
-                        }
-                    }
-                    break;
-                } else {
-
-                    /*
-                    Wyszukiwanie plików tekstowych i dodawanie ich do kolejki.
-                     */
-                    try {
-                        Path dir = Paths.get(DIR_PATH);
-                        if (Files.exists(dir) && Files.isDirectory(dir)) {
-                            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
-                                private final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:**/*.txt");
-
-                                @Override
-                                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                                    if (useSimilarityMode && file.equals(referenceFilePath)) {
-                                        return FileVisitResult.CONTINUE;
-                                    }
-
-                                    if (matcher.matches(file) && !Thread.currentThread().isInterrupted() && !isRunning.get()) {
-                                        try {
-                                            Optional<Path> optPath = Optional.of(file);
-                                            queue.put(optPath);
-                                            final String fileInfo = "Dodano plik do analizy: " + file.getFileName() + "\n";
-                                            SwingUtilities.invokeLater(() -> outputArea.append(fileInfo));
-                                        } catch (InterruptedException e) {
-                                            Thread.currentThread().interrupt();
-                                            return FileVisitResult.TERMINATE;
-                                        }
-                                    }
-                                    return FileVisitResult.CONTINUE;
-                                }
-                            });
-                        } else {
-                            final String dirError = "Katalog " + DIR_PATH + " nie istnieje lub nie jest katalogiem!\n";
-                            SwingUtilities.invokeLater(() -> outputArea.append(dirError));
-                        }
-                    } catch (IOException e) {
-                        final String ioError = "Błąd wejścia/wyjścia: " + e.getMessage() + "\n";
-                        SwingUtilities.invokeLater(() -> outputArea.append(ioError));
-                    }
-                }
-
-                final String delayInfo = String.format("Producent: %s ponownie sprawdzi katalogi za %d sekund...\n", name, delay);
-                SwingUtilities.invokeLater(() -> outputArea.append(delayInfo));
-
-                try {
-                    TimeUnit.SECONDS.sleep(delay);
-                } catch (InterruptedException e) {
-                    final String interruptInfo = String.format("Przerwa producenta %s przerwana!\n", name);
-                    SwingUtilities.invokeLater(() -> outputArea.append(interruptInfo));
-                    if (!isRunning.get()) Thread.currentThread().interrupt();
-                }
-            }
-
-            final String endInfo = String.format("Producent %s zakończył pracę!\n", name);
-            SwingUtilities.invokeLater(() -> outputArea.append(endInfo));
-        };
-    }
-
-    private Runnable createConsumer(BlockingQueue<Optional<Path>> queue)
-    {
-        return () -> {
-            final String name = Thread.currentThread().getName();
-            final String startInfo = String.format("Konsument: %s uruchomiony...\n", name);
-            SwingUtilities.invokeLater(() -> outputArea.append(startInfo));
-
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Optional<Path> optionalPath = queue.take();
-                    if (optionalPath.isEmpty()) {
-                        break;
-                    }
-
-                    Path path = optionalPath.get();
-                    final String fileName = path.getFileName().toString();
-                    final String processInfo = String.format("Przetwarzanie pliku: %s\n", fileName);
-                    SwingUtilities.invokeLater(() -> outputArea.append(processInfo));
-
-                    try {
-
-                        /*
-                        Oblicz statystykę wyrazów.
-                         */
-                        Map<String, Long> wordStats = getLinkedCountedWord(path, statistics);
-
-                        /*
-                        Wyświetl statystykę wyrazów w interfejsie użytkownika.
-                         */
-                        SwingUtilities.invokeLater(() -> {
-                            outputArea.append("\nStatystyka wyrazów w pliku " + fileName + ":\n");
-                            if (wordStats.isEmpty()) {
-                                outputArea.append("  Brak słów w pliku lub wszystkie zostały odfiltrowane\n");
-                            } else {
-                                wordStats.forEach((word, count) ->
-                                        outputArea.append("  " + word + " = " + count + "\n")
-                                );
-                            }
-                        });
-
-                        /*
-                        Jeśli tryb podobieństwa jest włączony, oblicz je.
-                         */
-                        if (useSimilarityMode && referenceVector != null) {
-
-                            /*
-                            Użycie wektora słów do porównywania.
-                             */
-                            Map<String, Long> fullWordStats = getLinkedCountedWord(path, 0);
-
-
-                            /*
-                            Dodanie wyniku podobieństwa do listy wyników.
-                             */
-                            final double finalSimilarity = CosineSimilarity.cosineSimilarity(referenceVector, fullWordStats);
-                            CosineSimilarity.SimilarityResults newResult =
-                                    new CosineSimilarity.SimilarityResults(fileName, finalSimilarity);
-
-                            synchronized (similarityResults) {
-                                similarityResults.add(newResult);
-                            }
-
-                            /*
-                            Wyświetlanie wyników podobieństwa w interfejsie użytkownika.
-                             */
-                            SwingUtilities.invokeLater(() -> outputArea.append("  Podobieństwo do pliku referencyjnego: " +
-                                    String.format("%.4f", finalSimilarity) + "\n"));
-                        }
-                    } catch (Exception e) {
-                        final String errorMessage = e.getMessage();
-                        SwingUtilities.invokeLater(() -> outputArea.append("Błąd podczas przetwarzania pliku " + fileName + ": " +
-                                errorMessage + "\n"));
-                        Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, "Komunikat opisujący kontekst błędu", e);
-                    }
-                } catch (InterruptedException e) {
-                    final String interruptInfo = String.format("Oczekiwanie konsumenta %s zostało przerwane!\n", name);
-                    SwingUtilities.invokeLater(() -> outputArea.append(interruptInfo));
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-
-            final String endInfo = String.format("Konsument %s zakończył pracę!\n", name);
-            SwingUtilities.invokeLater(() -> outputArea.append(endInfo));
-        };
-    }
-
-    private Map<String, Long> getLinkedCountedWord(Path path, int wordsLimit) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            Map<String, Long> wordCount = reader.lines()
-                    .flatMap(line -> Arrays.stream(line.toLowerCase()
-                            .replaceAll("[^a-ząćęłńóśźż0-9\\s]", " ")
-                            .trim()
-                            .split("\\s+")))
-                    .filter(word -> !word.isEmpty())
-                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-            if (wordsLimit > 0) {
-                return wordCount.entrySet().stream()
-                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                        .limit(wordsLimit)
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                Map.Entry::getValue,
-                                (k, _) -> { throw new IllegalStateException(String.format("Błąd! Duplikat klucza %s", k)); },
-                                LinkedHashMap::new
-                        ));
-            } else {
-                return wordCount;
-            }
-        }
+        engine.start();
     }
 }
@@ -0,0 +1,163 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Wstępny filtr podobnych dokumentów: sygnatury MinHash zbiorów słów i haszowanie
+wrażliwe na lokalność (LSH) w pasmach.
+
+Sygnatura ma bands * rows wartości; dwa dokumenty są kandydatami, jeśli w choć jednym paśmie
+wszystkie rows wartości są równe. Prawdopodobieństwo tego dla dokumentów o podobieństwie Jaccarda s
+wynosi 1 - (1 - s^rows)^bands, a próg, przy którym rośnie najszybciej, to około (1 / bands)^(1 / rows).
+Więcej pasm - lepsza czułość (recall), więcej wierszy w paśmie - mniej fałszywych kandydatów.
+
+Dokładna miara podobieństwa liczona jest potem tylko dla kandydatów.
+ */
+public class MinHashLsh {
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final ConcurrentHashMap<Path, int[]> signatures = new ConcurrentHashMap<>();
+
+    public MinHashLsh(int bands, int rows, long seed) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Liczba pasm i wierszy LSH musi być dodatnia");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        long state = seed;
+        for (int i = 0; i < seeds.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double estimatedThreshold() {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    /*
+    Minimum każdej z funkcji haszujących po identyfikatorach terminów dokumentu.
+    Identyfikatory pochodzą ze wspólnego TermDictionary, więc sygnatury są porównywalne w obrębie przebiegu.
+     */
+    public int[] signature(SparseVector vector) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int t = 0; t < vector.size(); t++) {
+            long term = vector.termIdAt(t);
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(term ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public void update(Path path, int[] signature) {
+        signatures.put(FileIndex.key(path), signature);
+    }
+
+    public void remove(Path path) {
+        signatures.remove(FileIndex.key(path));
+    }
+
+    /*
+    Usuwa dokumenty z katalogu root spoza podanego zbioru ścieżek (w postaci FileIndex.key).
+     */
+    public void retainOnly(Path root, Set<Path> existing) {
+        signatures.keySet().removeIf(key -> key.startsWith(root) && !existing.contains(key));
+    }
+
+    public int[] signatureOf(Path path) {
+        return signatures.get(FileIndex.key(path));
+    }
+
+    /*
+    true, jeśli sygnatury są równe w co najmniej jednym paśmie.
+     */
+    public boolean isCandidate(int[] first, int[] second) {
+        for (int band = 0; band < bands; band++) {
+            if (Arrays.equals(first, band * rows, (band + 1) * rows, second, band * rows, (band + 1) * rows)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+    Pary kandydatów (i < j, indeksy w liście documents) zakodowane jako (i << 32) | j,
+    posortowane rosnąco i bez powtórzeń. Dokumenty bez sygnatury są pomijane.
+     */
+    public long[] candidatePairs(List<Path> documents) {
+        long[] pairs = new long[16];
+        int size = 0;
+        for (int band = 0; band < bands; band++) {
+            Map<Long, int[]> buckets = new HashMap<>();
+            Map<Long, Integer> bucketSizes = new HashMap<>();
+            for (int doc = 0; doc < documents.size(); doc++) {
+                int[] signature = signatures.get(FileIndex.key(documents.get(doc)));
+                if (signature == null) {
+                    continue;
+                }
+                long key = bandKey(signature, band);
+                int[] members = buckets.get(key);
+                int count = bucketSizes.getOrDefault(key, 0);
+                if (members == null) {
+                    members = new int[4];
+                } else if (count == members.length) {
+                    members = Arrays.copyOf(members, count * 2);
+                }
+                for (int m = 0; m < count; m++) {
+                    if (size == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, size * 2);
+                    }
+                    pairs[size++] = ((long) members[m] << 32) | doc;
+                }
+                members[count] = doc;
+                buckets.put(key, members);
+                bucketSizes.put(key, count + 1);
+            }
+        }
+
+        Arrays.sort(pairs, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || pairs[unique - 1] != pairs[i]) {
+                pairs[unique++] = pairs[i];
+            }
+        }
+        return Arrays.copyOf(pairs, unique);
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            key = mix(key * 31 + signature[r]);
+        }
+        return key;
+    }
+
+    /*
+    Mieszanie bitów z generatora SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32C;
+
+/*
+Liczenie słów w dużym pliku równolegle.
+
+Plik dzielony jest na zakresy bajtów, których granice przesuwane są na najbliższy bajt ASCII
+niebędący literą ani cyfrą - taki bajt zawsze rozdziela słowa i nigdy nie jest częścią
+wielobajtowego znaku UTF-8. Każdy zakres liczony jest osobnym zadaniem w ForkJoinPool,
+a wyniki scalane są w kolejności zakresów, dzięki czemu kolejność pierwszych wystąpień
+(a więc i rozstrzyganie remisów w topN) jest taka sama jak przy liczeniu sekwencyjnym.
+
+Każde zadanie liczy też CRC32C swojego zakresu; sumy łączone są w kolejności zakresów
+(combineCrc32c), co daje CRC32C całego pliku bez jego ponownego odczytu.
+ */
+public class ParallelWordCounter {
+    private static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int BOUNDARY_SCAN_BUFFER = 8192;
+    private static final long CRC32C_POLYNOMIAL = 0x82F63B78L;
+
+    private final ForkJoinPool pool;
+
+    public ParallelWordCounter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /*
+    Zlicza słowa kanału do podanego słownika i zwraca CRC32C jego zawartości.
+     */
+    public long count(FileChannel channel, WordFrequencyMap into) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L));
+        List<Long> boundaries = findBoundaries(channel, size, chunkSize);
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            ChunkTask task = new ChunkTask(channel, boundaries.get(i), boundaries.get(i + 1));
+            tasks.add(task);
+            pool.execute(task);
+        }
+
+        long crc = 0;
+        try {
+            for (ChunkTask task : tasks) {
+                into.addAll(task.join());
+                crc = combineCrc32c(crc, task.crc, task.end - task.start);
+            }
+            return crc;
+        } catch (UncheckedIOException e) {
+            for (ChunkTask task : tasks) {
+                task.cancel(true);
+            }
+            throw e.getCause();
+        }
+    }
+
+    private static List<Long> findBoundaries(FileChannel channel, long size, long chunkSize) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_BUFFER);
+        long previous = 0;
+        for (long target = chunkSize; target < size; target += chunkSize) {
+            if (target <= previous) {
+                continue;
+            }
+            long boundary = nextSeparator(channel, target, size, buffer);
+            if (boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            previous = boundary;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    private static long nextSeparator(FileChannel channel, long from, long size, ByteBuffer buffer) throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isSeparator(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b >= 0 && !WordTokenizer.isWordChar(WordTokenizer.normalize((char) b));
+    }
+
+    /*
+    CRC32C sklejenia dwóch ciągów bajtów z ich osobnych sum; length2 to długość drugiego ciągu.
+    Metoda z zlib (crc32_combine): dopisanie length2 bajtów zerowych do pierwszej sumy jako
+    potęgowanie macierzy nad GF(2), czyli O(log length2) zamiast ponownego czytania danych.
+     */
+    static long combineCrc32c(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = CRC32C_POLYNOMIAL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    private static class ChunkTask extends RecursiveTask<WordFrequencyMap> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private long crc;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected WordFrequencyMap compute() {
+            WordFrequencyMap words = new WordFrequencyMap();
+            CRC32C checksum = new CRC32C();
+            try {
+                FileIngestor.decodeRange(channel, start, end, new WordTokenizer(words), checksum);
+                crc = checksum.getValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return words;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+Liczniki i histogramy czasów potoku producent/konsument:
+  walk       - pełny przegląd katalogu (łącznie z czekaniem na miejsce w kolejce),
+  queuePut   - czekanie producenta na miejsce w kolejce,
+  queueTake  - czekanie konsumenta na plik w kolejce,
+  tokenize   - odczyt, dekodowanie i zliczanie słów pliku (bez plików z indeksu),
+  similarity - policzenie miary podobieństwa do pliku referencyjnego,
+  file       - całe przetwarzanie pliku przez konsumenta.
+
+Długie czekanie na put przy krótkim take oznacza, że wąskim gardłem są konsumenci;
+długie take przy pustej kolejce - że producent nie nadąża z dostarczaniem plików.
+
+Wszystko opiera się na LongAdder, więc zapis z wielu wątków nie wprowadza wspólnej blokady.
+Metryki rejestrowane są jako MXBean w platformowym serwerze MBean.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final LatencyHistogram walk = new LatencyHistogram();
+    private final LatencyHistogram queuePut = new LatencyHistogram();
+    private final LatencyHistogram queueTake = new LatencyHistogram();
+    private final LatencyHistogram tokenize = new LatencyHistogram();
+    private final LatencyHistogram similarity = new LatencyHistogram();
+    private final LatencyHistogram file = new LatencyHistogram();
+    private final LongAdder filesEnqueued = new LongAdder();
+    private final LongAdder filesProcessed = new LongAdder();
+    private final LongAdder filesFromIndex = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private volatile long startedNanos = System.nanoTime();
+
+    private volatile BlockingQueue<?> queue;
+    private volatile int queueCapacity;
+    private volatile IntSupplier activeConsumers = () -> 0;
+    private ObjectName objectName;
+
+    public LatencyHistogram walk() {
+        return walk;
+    }
+
+    public LatencyHistogram queuePut() {
+        return queuePut;
+    }
+
+    public LatencyHistogram queueTake() {
+        return queueTake;
+    }
+
+    public LatencyHistogram tokenize() {
+        return tokenize;
+    }
+
+    public LatencyHistogram similarity() {
+        return similarity;
+    }
+
+    public LatencyHistogram file() {
+        return file;
+    }
+
+    public void fileEnqueued() {
+        filesEnqueued.increment();
+    }
+
+    public void fileProcessed(long nanos) {
+        filesProcessed.increment();
+        file.record(nanos);
+    }
+
+    public void fileFromIndex() {
+        filesFromIndex.increment();
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    public void bytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /*
+    Początek okresu, z którego liczona jest średnia liczba plików na sekundę.
+     */
+    public void started() {
+        startedNanos = System.nanoTime();
+    }
+
+    /*
+    Kolejka i liczba konsumentów bieżącego uruchomienia - odczytywane przy każdym zrzucie.
+     */
+    public void watch(BlockingQueue<?> queue, int capacity, IntSupplier activeConsumers) {
+        this.queue = queue;
+        this.queueCapacity = capacity;
+        this.activeConsumers = activeConsumers;
+    }
+
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("pl.zpo.analysis:type=PipelineMetrics,name=engine-" + INSTANCES.incrementAndGet());
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            Logger.getLogger(PipelineMetrics.class.getName()).log(Level.WARNING, "Błąd rejestracji metryk w JMX", e);
+        }
+    }
+
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            Logger.getLogger(PipelineMetrics.class.getName()).log(Level.WARNING, "Błąd wyrejestrowania metryk z JMX", e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getFilesEnqueued() {
+        return filesEnqueued.sum();
+    }
+
+    @Override
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+
+    @Override
+    public long getFilesFromIndex() {
+        return filesFromIndex.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /*
+    Średnia od ostatniego uruchomienia silnika.
+     */
+    @Override
+    public double getFilesPerSecond() {
+        return filesProcessed.sum() / elapsedSeconds();
+    }
+
+    /*
+    Łączny czas odczytu plików podzielony przez liczbę bajtów - przepustowość samego odczytu i zliczania.
+     */
+    @Override
+    public double getMegabytesPerSecond() {
+        long nanos = tokenize.totalNanos();
+        return nanos == 0 ? 0.0 : bytesRead.sum() / 1e6 / (nanos / 1e9);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        BlockingQueue<?> current = queue;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getActiveConsumers() {
+        return activeConsumers.getAsInt();
+    }
+
+    @Override
+    public double getWalkMeanMillis() {
+        return walk.meanNanos() / 1e6;
+    }
+
+    @Override
+    public double getQueuePutMeanMicros() {
+        return queuePut.meanNanos() / 1e3;
+    }
+
+    @Override
+    public double getQueueTakeMeanMicros() {
+        return queueTake.meanNanos() / 1e3;
+    }
+
+    @Override
+    public double getTokenizeMeanMicros() {
+        return tokenize.meanNanos() / 1e3;
+    }
+
+    @Override
+    public double getSimilarityMeanMicros() {
+        return similarity.meanNanos() / 1e3;
+    }
+
+    @Override
+    public double getFileMeanMicros() {
+        return file.meanNanos() / 1e3;
+    }
+
+    @Override
+    public String getText() {
+        return String.format(Locale.ROOT,
+                "Metryki: pliki %d/%d (z indeksu %d, błędy %d), %.1f plików/s, odczyt %.1f MB (%.1f MB/s), kolejka %d/%d, konsumenci %d\n",
+                getFilesProcessed(), getFilesEnqueued(), getFilesFromIndex(), getErrors(), getFilesPerSecond(),
+                getBytesRead() / 1e6, getMegabytesPerSecond(), getQueueDepth(), getQueueCapacity(), getActiveConsumers())
+                + "  przegląd katalogu: " + walk.toText() + "\n"
+                + "  czekanie na put:   " + queuePut.toText() + "\n"
+                + "  czekanie na take:  " + queueTake.toText() + "\n"
+                + "  zliczanie słów:    " + tokenize.toText() + "\n"
+                + "  podobieństwo:      " + similarity.toText() + "\n"
+                + "  cały plik:         " + file.toText() + "\n";
+    }
+
+    @Override
+    public String getJson() {
+        return String.format(Locale.ROOT,
+                "{\"timestamp\":%d,\"filesEnqueued\":%d,\"filesProcessed\":%d,\"filesFromIndex\":%d,\"errors\":%d,"
+                        + "\"bytesRead\":%d,\"filesPerSecond\":%.3f,\"megabytesPerSecond\":%.3f,"
+                        + "\"queueDepth\":%d,\"queueCapacity\":%d,\"activeConsumers\":%d,",
+                System.currentTimeMillis(), getFilesEnqueued(), getFilesProcessed(), getFilesFromIndex(), getErrors(),
+                getBytesRead(), getFilesPerSecond(), getMegabytesPerSecond(),
+                getQueueDepth(), getQueueCapacity(), getActiveConsumers())
+                + "\"walk\":" + walk.toJson()
+                + ",\"queuePut\":" + queuePut.toJson()
+                + ",\"queueTake\":" + queueTake.toJson()
+                + ",\"tokenize\":" + tokenize.toJson()
+                + ",\"similarity\":" + similarity.toJson()
+                + ",\"file\":" + file.toJson() + "}";
+    }
+
+    private double elapsedSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+    }
+}
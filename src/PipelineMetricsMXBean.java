@@ -0,0 +1,40 @@
+/*
+Widok metryk potoku przez JMX (np. w JConsole lub VisualVM pod pl.zpo.analysis:type=PipelineMetrics).
+ */
+public interface PipelineMetricsMXBean {
+    long getFilesEnqueued();
+
+    long getFilesProcessed();
+
+    long getFilesFromIndex();
+
+    long getErrors();
+
+    long getBytesRead();
+
+    double getFilesPerSecond();
+
+    double getMegabytesPerSecond();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    int getActiveConsumers();
+
+    double getWalkMeanMillis();
+
+    double getQueuePutMeanMicros();
+
+    double getQueueTakeMeanMicros();
+
+    double getTokenizeMeanMicros();
+
+    double getSimilarityMeanMicros();
+
+    double getFileMeanMicros();
+
+    String getText();
+
+    String getJson();
+}
@@ -0,0 +1,16 @@
+/*
+Podobieństwo cosinusowe surowych liczności słów.
+ */
+public class RawCosineScorer implements SimilarityScorer {
+    public static final String NAME = "cosine";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public double score(SparseVector query, SparseVector document) {
+        return CosineSimilarity.cosineSimilarity(query, document);
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/*
+Strumieniowy zapis wyników analizy w formacie TSV lub JSON Lines (jeden obiekt JSON w linii).
+Metody są synchronizowane, bo wywołują je równolegle wątki konsumentów.
+
+Rekordy:
+  words      - słowo z listy najczęstszych słów pliku (pozycja, słowo, liczność),
+  similarity - podobieństwo pliku do pliku referencyjnego wraz z nazwą miary,
+  ranking    - pozycja pliku w końcowym rankingu podobieństwa,
+  query      - pozycja pliku wśród k najbardziej podobnych do pliku zapytania (indeks odwrócony),
+  heavy      - słowo z listy najczęstszych słów strumienia liczonej w stałej pamięci (pozycja, słowo,
+               górne oszacowanie liczności, maksymalny błąd, znacznik exact/approx).
+ */
+public class ResultWriter implements AutoCloseable {
+
+    public enum Format {
+        TSV,
+        JSON
+    }
+
+    private final Writer out;
+    private final Format format;
+
+    public ResultWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public synchronized void writeWords(String file, WordFrequencyMap topWords) {
+        for (int i = 0; i < topWords.size(); i++) {
+            String word = topWords.wordAt(i);
+            long count = topWords.countAt(i);
+            if (format == Format.TSV) {
+                line("words\t" + tsv(file) + "\t" + (i + 1) + "\t" + word + "\t" + count);
+            } else {
+                line("{\"type\":\"words\",\"file\":" + json(file) + ",\"rank\":" + (i + 1)
+                        + ",\"word\":" + json(word) + ",\"count\":" + count + "}");
+            }
+        }
+        flush();
+    }
+
+    public synchronized void writeSimilarity(CosineSimilarity.SimilarityResults result) {
+        if (format == Format.TSV) {
+            line("similarity\t" + tsv(result.getDocumentPath()) + "\t" + score(result.getSimilarityScore())
+                    + "\t" + result.getScorer());
+        } else {
+            line("{\"type\":\"similarity\",\"file\":" + json(result.getDocumentPath())
+                    + ",\"score\":" + score(result.getSimilarityScore())
+                    + ",\"scorer\":" + json(result.getScorer()) + "}");
+        }
+        flush();
+    }
+
+    public synchronized void writeRanking(List<CosineSimilarity.SimilarityResults> sorted) {
+        writeRanking("ranking", sorted);
+    }
+
+    public synchronized void writeRanking(String type, List<CosineSimilarity.SimilarityResults> sorted) {
+        for (int i = 0; i < sorted.size(); i++) {
+            CosineSimilarity.SimilarityResults result = sorted.get(i);
+            if (format == Format.TSV) {
+                line(type + "\t" + tsv(result.getDocumentPath()) + "\t" + (i + 1) + "\t" + score(result.getSimilarityScore())
+                        + "\t" + result.getScorer());
+            } else {
+                line("{\"type\":" + json(type) + ",\"file\":" + json(result.getDocumentPath()) + ",\"rank\":" + (i + 1)
+                        + ",\"score\":" + score(result.getSimilarityScore())
+                        + ",\"scorer\":" + json(result.getScorer()) + "}");
+            }
+        }
+        flush();
+    }
+
+    public synchronized void writeHeavyHitters(String source, List<SpaceSavingCounter.Entry> top) {
+        for (int i = 0; i < top.size(); i++) {
+            SpaceSavingCounter.Entry entry = top.get(i);
+            if (format == Format.TSV) {
+                line("heavy\t" + tsv(source) + "\t" + (i + 1) + "\t" + entry.getWord() + "\t" + entry.getCount()
+                        + "\t" + entry.getError() + "\t" + (entry.isExact() ? "exact" : "approx"));
+            } else {
+                line("{\"type\":\"heavy\",\"source\":" + json(source) + ",\"rank\":" + (i + 1)
+                        + ",\"word\":" + json(entry.getWord()) + ",\"count\":" + entry.getCount()
+                        + ",\"error\":" + entry.getError() + ",\"approximate\":" + !entry.isExact() + "}");
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void line(String text) {
+        try {
+            out.write(text);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String score(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String tsv(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    static String json(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,94 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/*
+Współbieżny zbiór wyników podobieństwa.
+
+Wyniki trzymane są w epokach. Epoka to mapa plik -> ostatni wynik (ponownie przetworzony plik
+zastępuje swój poprzedni wynik zamiast go dublować) oraz lista z przeskokami uporządkowana malejąco
+po wyniku, czyli ranking utrzymywany na bieżąco przy każdym dopisaniu. Dopisywanie nie używa
+wspólnej blokady: mapa blokuje tylko pojedynczy kubełek, a lista z przeskokami jest bez blokad.
+
+clear() podmienia całą epokę, więc czytelnik nigdy nie widzi częściowo wyczyszczonych wyników,
+a wynik policzony jeszcze dla poprzedniego pliku referencyjnego (ze starszym numerem epoki)
+jest odrzucany.
+ */
+public class SimilarityResultStore {
+    private static final Comparator<CosineSimilarity.SimilarityResults> RANKING =
+            Comparator.comparingDouble(CosineSimilarity.SimilarityResults::getSimilarityScore).reversed()
+                    .thenComparing(CosineSimilarity.SimilarityResults::getDocumentPath)
+                    .thenComparingInt(System::identityHashCode);
+
+    private static final class Epoch {
+        private final long number;
+        private final ConcurrentHashMap<Path, CosineSimilarity.SimilarityResults> byFile = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<CosineSimilarity.SimilarityResults> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+        Epoch(long number) {
+            this.number = number;
+        }
+    }
+
+    private volatile Epoch current = new Epoch(0);
+
+    /*
+    Numer bieżącej epoki - odczytywany przed użyciem pliku referencyjnego i przekazywany do add.
+     */
+    public long epoch() {
+        return current.number;
+    }
+
+    /*
+    Zwraca false, jeśli od odczytu numeru epoki wyniki zostały wyczyszczone.
+     */
+    public boolean add(long epoch, Path file, CosineSimilarity.SimilarityResults result) {
+        Epoch target = current;
+        if (target.number != epoch) {
+            return false;
+        }
+        target.byFile.compute(FileIndex.key(file), (_, previous) -> {
+            if (previous != null) {
+                target.ranking.remove(previous);
+            }
+            target.ranking.add(result);
+            return result;
+        });
+        return true;
+    }
+
+    public void clear() {
+        synchronized (this) {
+            current = new Epoch(current.number + 1);
+        }
+    }
+
+    public int size() {
+        return current.byFile.size();
+    }
+
+    /*
+    k najlepszych wyników z bieżącego rankingu, bez sortowania.
+     */
+    public List<CosineSimilarity.SimilarityResults> topK(int k) {
+        List<CosineSimilarity.SimilarityResults> top = new ArrayList<>(Math.max(0, Math.min(k, 1024)));
+        Iterator<CosineSimilarity.SimilarityResults> iterator = current.ranking.iterator();
+        while (top.size() < k && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    /*
+    Kopia wszystkich wyników epoki posortowana malejąco; każdy plik występuje w niej raz.
+     */
+    public List<CosineSimilarity.SimilarityResults> snapshot() {
+        List<CosineSimilarity.SimilarityResults> sorted = new ArrayList<>(current.byFile.values());
+        sorted.sort(RANKING);
+        return sorted;
+    }
+}
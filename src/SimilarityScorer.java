@@ -0,0 +1,24 @@
+import java.util.List;
+
+/*
+Miara podobieństwa dwóch skompilowanych wektorów dokumentów.
+Pierwszym argumentem jest dokument zapytania (np. plik referencyjny), drugim porównywany plik;
+ma to znaczenie tylko dla miar niesymetrycznych (BM25).
+ */
+public interface SimilarityScorer {
+    List<String> NAMES = List.of(RawCosineScorer.NAME, TfIdfCosineScorer.NAME, JaccardScorer.NAME, Bm25Scorer.NAME);
+
+    String name();
+
+    double score(SparseVector query, SparseVector document);
+
+    static SimilarityScorer forName(String name, CorpusStatistics statistics) {
+        return switch (name) {
+            case RawCosineScorer.NAME -> new RawCosineScorer();
+            case TfIdfCosineScorer.NAME -> new TfIdfCosineScorer(statistics);
+            case JaccardScorer.NAME -> new JaccardScorer();
+            case Bm25Scorer.NAME -> new Bm25Scorer(statistics);
+            default -> throw new IllegalArgumentException("Nieznana miara podobieństwa: " + name + " (dostępne: " + String.join(", ", NAMES) + ")");
+        };
+    }
+}
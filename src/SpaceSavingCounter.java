@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Przybliżone najczęstsze słowa strumienia o stałej pamięci (algorytm Space-Saving).
+
+Śledzonych jest najwyżej capacity słów. Słowo spoza zbioru zastępuje słowo o najmniejszym
+liczniku i przejmuje jego licznik + 1, a przejęta wartość zapamiętywana jest jako błąd.
+Gwarancje dla N słów strumienia:
+  - licznik nigdy nie zaniża liczności, a zawyża ją najwyżej o swój błąd (<= N / capacity),
+  - każde słowo występujące więcej niż N / capacity razy jest śledzone.
+Słowo z błędem 0 ma licznik dokładny. Dopóki nie było wymiany, wszystkie liczniki są dokładne.
+
+Słowa trzymane są w tablicy haszującej z adresowaniem otwartym (usuwanie przez przesunięcie
+wstecz), a liczniki w kopcu minimalnym, więc aktualizacja kosztuje O(log capacity)
+i nie alokuje pamięci, jeśli słowo jest już śledzone.
+ */
+public class SpaceSavingCounter implements WordTokenizer.TokenSink {
+    private static final int EMPTY = -1;
+
+    public static class Entry {
+        private final String word;
+        private final long count;
+        private final long error;
+
+        Entry(String word, long count, long error) {
+            this.word = word;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        /*
+        Górne oszacowanie liczności.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /*
+        Największe możliwe zawyżenie licznika; count - error to gwarantowana dolna granica.
+         */
+        public long getError() {
+            return error;
+        }
+
+        public boolean isExact() {
+            return error == 0;
+        }
+    }
+
+    private final int capacity;
+    private final String[] words;
+    private final int[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;
+    private final int[] heapIndex;
+    private final int[] table;
+    private final int mask;
+    private int size;
+    private long total;
+    private long evictions;
+
+    public SpaceSavingCounter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Liczba śledzonych słów musi być dodatnia");
+        }
+        this.capacity = capacity;
+        words = new String[capacity];
+        hashes = new int[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        mask = tableSize - 1;
+    }
+
+    /*
+    Liczba śledzonych słów dla względnego błędu epsilon: licznik zawyżony najwyżej o epsilon * N.
+     */
+    public static int capacityForError(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("Błąd względny musi być z przedziału (0, 1): " + epsilon);
+        }
+        return (int) Math.ceil(1.0 / epsilon);
+    }
+
+    @Override
+    public void accept(char[] buffer, int length) {
+        total++;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && equals(words[id], buffer, length)) {
+                counts[id]++;
+                siftDown(heapIndex[id]);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size < capacity) {
+            id = size;
+            words[id] = new String(buffer, 0, length);
+            hashes[id] = hash;
+            counts[id] = 1;
+            errors[id] = 0;
+            table[slot] = id;
+            heap[size] = id;
+            heapIndex[id] = size;
+            size++;
+            siftUp(size - 1);
+            return;
+        }
+
+        /*
+        Wymiana słowa o najmniejszym liczniku. Po usunięciu starego słowa z tablicy
+        szukamy wolnego miejsca od nowa, bo przesunięcie wstecz mogło zająć wyliczone wcześniej.
+         */
+        id = heap[0];
+        remove(id);
+        evictions++;
+        errors[id] = counts[id];
+        counts[id]++;
+        words[id] = new String(buffer, 0, length);
+        hashes[id] = hash;
+        slot = mix(hash) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id;
+        siftDown(0);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /*
+    Liczba słów strumienia (N).
+     */
+    public long total() {
+        return total;
+    }
+
+    /*
+    true, jeśli któreś słowo zostało wymienione - liczniki mogą być wtedy zawyżone.
+     */
+    public boolean isApproximate() {
+        return evictions > 0;
+    }
+
+    /*
+    Największy możliwy błąd licznika: najmniejszy licznik, gdy wszystkie miejsca są zajęte
+    (nie więcej niż N / capacity), a 0, dopóki wyniki są dokładne.
+     */
+    public long errorBound() {
+        return isApproximate() ? counts[heap[0]] : 0;
+    }
+
+    /*
+    limit słów o największych licznikach, malejąco.
+     */
+    public List<Entry> topN(int limit) {
+        Integer[] ids = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : Long.compare(errors[a], errors[b]));
+        List<Entry> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            int id = ids[i];
+            top.add(new Entry(words[id], counts[id], errors[id]));
+        }
+        return top;
+    }
+
+    /*
+    Śledzone słowa jako słownik częstości (malejąco), np. do wektora podobieństwa.
+     */
+    public WordFrequencyMap toFrequencyMap() {
+        WordFrequencyMap map = new WordFrequencyMap(size);
+        for (Entry entry : topN(size)) {
+            map.add(entry.getWord(), entry.getCount());
+        }
+        return map;
+    }
+
+    /*
+    Usunięcie słowa z tablicy haszującej z przesunięciem wstecz kolejnych wpisów łańcucha.
+     */
+    private void remove(int id) {
+        int slot = mix(hashes[id]) & mask;
+        while (table[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            int moved = table[next];
+            if (moved == EMPTY) {
+                break;
+            }
+            int ideal = mix(hashes[moved]) & mask;
+            boolean stays = hole <= next ? (hole < ideal && ideal <= next) : (hole < ideal || ideal <= next);
+            if (!stays) {
+                table[hole] = moved;
+                hole = next;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[id]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(id, position);
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[id] <= counts[heap[child]]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(id, position);
+    }
+
+    private void place(int id, int position) {
+        heap[position] = id;
+        heapIndex[id] = position;
+    }
+
+    private static boolean equals(String word, char[] buffer, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/*
+Skompilowany wektor dokumentu: identyfikatory terminów posortowane rosnąco
+w tablicy prymitywnej, równoległa tablica liczności, zapamiętana norma i długość dokumentu.
+ */
+public class SparseVector {
+    private final int[] termIds;
+    private final long[] counts;
+    private final double norm;
+    private final long length;
+
+    public SparseVector(int[] termIds, long[] counts) {
+        this.termIds = termIds;
+        this.counts = counts;
+        double sum = 0.0;
+        long total = 0;
+        for (long count : counts) {
+            sum += (double) count * count;
+            total += count;
+        }
+        this.norm = Math.sqrt(sum);
+        this.length = total;
+    }
+
+    public static SparseVector compile(WordFrequencyMap words, TermDictionary dictionary) {
+        int size = words.size();
+
+        /*
+        Sortowanie po identyfikatorze: identyfikator w starszych 32 bitach, pozycja w słowniku w młodszych.
+         */
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) dictionary.idOf(words.wordAt(i)) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] termIds = new int[size];
+        long[] counts = new long[size];
+        for (int i = 0; i < size; i++) {
+            termIds[i] = (int) (keys[i] >>> 32);
+            counts[i] = words.countAt((int) keys[i]);
+        }
+        return new SparseVector(termIds, counts);
+    }
+
+    public int size() {
+        return termIds.length;
+    }
+
+    public int termIdAt(int index) {
+        return termIds[index];
+    }
+
+    public long countAt(int index) {
+        return counts[index];
+    }
+
+    public double norm() {
+        return norm;
+    }
+
+    /*
+    Liczba wszystkich słów dokumentu (suma liczności).
+     */
+    public long length() {
+        return length;
+    }
+
+    /*
+    Iloczyn skalarny bez alokacji. Przy wektorach podobnej długości scalanie obu list,
+    przy dużej dysproporcji przeszukiwanie binarne większego wektora dla każdego terminu mniejszego.
+     */
+    public double dot(SparseVector other) {
+        SparseVector small = size() <= other.size() ? this : other;
+        SparseVector large = small == this ? other : this;
+        if (small.size() == 0) {
+            return 0.0;
+        }
+
+        double dotProduct = 0.0;
+        if ((long) small.size() * 32 < large.size()) {
+            int from = 0;
+            for (int i = 0; i < small.size() && from < large.size(); i++) {
+                int found = Arrays.binarySearch(large.termIds, from, large.size(), small.termIds[i]);
+                if (found >= 0) {
+                    dotProduct += (double) small.counts[i] * large.counts[found];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return dotProduct;
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < small.size() && j < large.size()) {
+            int a = small.termIds[i];
+            int b = large.termIds[j];
+            if (a == b) {
+                dotProduct += (double) small.counts[i++] * large.counts[j++];
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dotProduct;
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Wspólny dla całego przebiegu słownik terminów: słowo -> stały identyfikator liczbowy.
+Identyfikatory nadawane są raz i współdzielone przez wszystkie wątki konsumentów.
+ */
+public class TermDictionary {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int idOf(String term) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(term, _ -> nextId.getAndIncrement());
+    }
+
+    public int size() {
+        return nextId.get();
+    }
+}
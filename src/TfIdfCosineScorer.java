@@ -0,0 +1,52 @@
+/*
+Podobieństwo cosinusowe wektorów ważonych TF-IDF: liczność słowa razy idf z bieżących
+statystyk korpusu. Słowa obecne w prawie każdym pliku ("i", "w", "się") dostają małą wagę.
+
+Wagi zależą od stanu korpusu w chwili liczenia, więc pliki ocenione na początku przeglądu
+widzą jeszcze niepełne statystyki.
+ */
+public class TfIdfCosineScorer implements SimilarityScorer {
+    public static final String NAME = "tfidf";
+
+    private final CorpusStatistics statistics;
+
+    public TfIdfCosineScorer(CorpusStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public double score(SparseVector query, SparseVector document) {
+        double dotProduct = 0.0;
+        double queryNorm = 0.0;
+        double documentNorm = 0.0;
+        int i = 0;
+        int j = 0;
+        while (i < query.size() || j < document.size()) {
+            int a = i < query.size() ? query.termIdAt(i) : Integer.MAX_VALUE;
+            int b = j < document.size() ? document.termIdAt(j) : Integer.MAX_VALUE;
+            if (a == b) {
+                double idf = statistics.idf(a);
+                double x = query.countAt(i++) * idf;
+                double y = document.countAt(j++) * idf;
+                dotProduct += x * y;
+                queryNorm += x * x;
+                documentNorm += y * y;
+            } else if (a < b) {
+                double x = query.countAt(i++) * statistics.idf(a);
+                queryNorm += x * x;
+            } else {
+                double y = document.countAt(j++) * statistics.idf(b);
+                documentNorm += y * y;
+            }
+        }
+        if (queryNorm == 0 || documentNorm == 0) {
+            return 0.0;
+        }
+        return dotProduct / Math.sqrt(queryNorm * documentNorm);
+    }
+}
@@ -0,0 +1,189 @@
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+Buforowane wyjście komunikatów do JTextArea.
+
+Wątki robocze tylko dopisują komunikat do kolejki bez blokad. Osobny wątek kilkanaście razy
+na sekundę opróżnia kolejkę i przekazuje do wątku EDT jedno złączone dopisanie. Jeśli EDT
+nie nadąża, kolejne komunikaty czekają w pierścieniu ostatnich maxLines komunikatów, a starsze
+są pomijane w widoku. Pole tekstowe przycinane jest do maxLines ostatnich linii.
+Pełny dziennik można zapisywać do pliku (spill) - trafia tam każdy komunikat, także pominięty w widoku.
+clear() przechodzi przez tę samą kolejkę, więc czyści widok dokładnie między wcześniejszymi
+a późniejszymi komunikatami; plik dziennika nie jest czyszczony.
+ */
+public class UiLogSink implements AutoCloseable {
+    public static final int DEFAULT_MAX_LINES = 10_000;
+    public static final int DEFAULT_FRAMES_PER_SECOND = 20;
+
+    /*
+    Znacznik clear() w kolejce - porównywany przez ==, więc osobny obiekt, a nie literał.
+     */
+    private static final String CLEAR = new String("");
+
+    private final JTextArea outputArea;
+    private final int maxLines;
+    private final ConcurrentLinkedQueue<String> incoming = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private final AtomicBoolean uiUpdatePending = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+    private volatile Writer spill;
+    private long dropped;
+    private boolean clearView;
+
+    public UiLogSink(JTextArea outputArea, int maxLines, int framesPerSecond) {
+        this.outputArea = outputArea;
+        this.maxLines = maxLines;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ui-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, 1000L / framesPerSecond);
+        flusher.scheduleAtFixedRate(this::flush, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+    Włącza zapis pełnego dziennika do pliku (dopisywanie na końcu).
+     */
+    public void spillTo(Path spillFile) throws IOException {
+        spill = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public void append(String message) {
+        incoming.offer(message);
+    }
+
+    /*
+    Czyści pole tekstowe wraz z komunikatami dopisanymi wcześniej, a jeszcze niewyświetlonymi.
+     */
+    public void clear() {
+        incoming.offer(CLEAR);
+    }
+
+    private void flush() {
+        String message;
+        while ((message = incoming.poll()) != null) {
+            if (message == CLEAR) {
+                pending.clear();
+                dropped = 0;
+                clearView = true;
+                continue;
+            }
+            writeSpill(message);
+            pending.addLast(message);
+            if (pending.size() > maxLines) {
+                pending.removeFirst();
+                dropped++;
+            }
+        }
+        flushSpill();
+
+        if ((pending.isEmpty() && !clearView) || !uiUpdatePending.compareAndSet(false, true)) {
+            return;
+        }
+
+        StringBuilder batch = new StringBuilder();
+        if (dropped > 0) {
+            batch.append(String.format("... pominięto %d komunikatów (pełny dziennik w pliku, jeśli włączony)\n", dropped));
+            dropped = 0;
+        }
+        for (String line : pending) {
+            batch.append(line);
+        }
+        pending.clear();
+
+        final String text = batch.toString();
+        final boolean clear = clearView;
+        clearView = false;
+        SwingUtilities.invokeLater(() -> {
+            try {
+                if (clear) {
+                    outputArea.setText("");
+                }
+                outputArea.append(text);
+                trim();
+            } finally {
+                uiUpdatePending.set(false);
+            }
+        });
+    }
+
+    /*
+    Usunięcie najstarszych linii ponad limit maxLines.
+     */
+    private void trim() {
+        int excess = outputArea.getLineCount() - maxLines;
+        if (excess <= 0) {
+            return;
+        }
+        try {
+            outputArea.replaceRange("", 0, outputArea.getLineStartOffset(excess));
+        } catch (BadLocationException e) {
+            Logger.getLogger(UiLogSink.class.getName()).log(Level.WARNING, "Błąd przycinania dziennika", e);
+        }
+    }
+
+    private void writeSpill(String message) {
+        Writer spill = this.spill;
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.write(message);
+        } catch (IOException e) {
+            Logger.getLogger(UiLogSink.class.getName()).log(Level.WARNING, "Błąd zapisu dziennika do pliku", e);
+        }
+    }
+
+    private void flushSpill() {
+        Writer spill = this.spill;
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.flush();
+        } catch (IOException e) {
+            Logger.getLogger(UiLogSink.class.getName()).log(Level.WARNING, "Błąd zapisu dziennika do pliku", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Writer spill = this.spill;
+        if (spill != null) {
+            try {
+                String message;
+                while ((message = incoming.poll()) != null) {
+                    if (message != CLEAR) {
+                        spill.write(message);
+                    }
+                }
+                spill.close();
+            } catch (IOException e) {
+                Logger.getLogger(UiLogSink.class.getName()).log(Level.WARNING, "Błąd zamykania dziennika", e);
+            }
+        }
+    }
+}
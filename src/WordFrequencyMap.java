@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+/*
+Słownik częstości słów z licznikami typu long.
+
+Słowa przechowywane są gęsto w kolejności pierwszego wystąpienia (identyfikator = indeks),
+a tablica haszująca z adresowaniem otwartym trzyma jedynie identyfikatory.
+Słowo z bufora tokenizera zamieniane jest na String tylko przy pierwszym wystąpieniu.
+ */
+public class WordFrequencyMap implements WordTokenizer.TokenSink {
+
+    public interface EntryConsumer {
+        void accept(String word, long count);
+    }
+
+    private static final int EMPTY = -1;
+
+    private String[] words;
+    private int[] hashes;
+    private long[] counts;
+    private int size;
+    private int[] table;
+    private int mask;
+
+    public WordFrequencyMap() {
+        this(16);
+    }
+
+    public WordFrequencyMap(int expectedSize) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        words = new String[capacity / 2];
+        hashes = new int[capacity / 2];
+        counts = new long[capacity / 2];
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+    }
+
+    @Override
+    public void accept(char[] buffer, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && equals(words[id], buffer, length)) {
+                counts[id]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, new String(buffer, 0, length), hash, 1);
+    }
+
+    public void add(String word, long count) {
+        int hash = word.hashCode();
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && words[id].equals(word)) {
+                counts[id] += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, word, hash, count);
+    }
+
+    public void addAll(WordFrequencyMap other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.words[i], other.counts[i]);
+        }
+    }
+
+    public long get(String word) {
+        int id = indexOf(word);
+        return id == EMPTY ? 0L : counts[id];
+    }
+
+    public int indexOf(String word) {
+        int hash = word.hashCode();
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && words[id].equals(word)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String wordAt(int index) {
+        return words[index];
+    }
+
+    public long countAt(int index) {
+        return counts[index];
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(words[i], counts[i]);
+        }
+    }
+
+    /*
+    Zwraca nowy słownik z limit najczęstszymi słowami, ułożonymi malejąco według liczności.
+    Przy równej liczności pierwszeństwo ma słowo, które wystąpiło wcześniej.
+    Wybór odbywa się kopcem o rozmiarze limit, bez sortowania wszystkich wpisów.
+     */
+    public WordFrequencyMap topN(int limit) {
+        int k = Math.max(0, Math.min(limit, size));
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int id = 0; id < size; id++) {
+            if (heapSize < k) {
+                heap[heapSize] = id;
+                siftUp(heap, heapSize++);
+            } else if (k > 0 && ranksBefore(id, heap[0])) {
+                heap[0] = id;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        WordFrequencyMap top = new WordFrequencyMap(k);
+        int[] ordered = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            ordered[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+        }
+        for (int id : ordered) {
+            top.add(words[id], counts[id]);
+        }
+        return top;
+    }
+
+    /*
+    Kopiec minimalny względem porządku rankingu - w korzeniu jest najsłabszy kandydat.
+     */
+    private boolean ranksBefore(int a, int b) {
+        return counts[a] != counts[b] ? counts[a] > counts[b] : a < b;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int id = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], id)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = id;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        int id = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && ranksBefore(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksBefore(id, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        if (heapSize > 0) {
+            heap[index] = id;
+        }
+    }
+
+    private void insert(int slot, String word, int hash, long count) {
+        if (size == words.length) {
+            grow();
+            slot = mix(hash) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        words[size] = word;
+        hashes[size] = hash;
+        counts[size] = count;
+        table[slot] = size++;
+    }
+
+    private void grow() {
+        int capacity = table.length * 2;
+        words = Arrays.copyOf(words, capacity / 2);
+        hashes = Arrays.copyOf(hashes, capacity / 2);
+        counts = Arrays.copyOf(counts, capacity / 2);
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(String word, char[] buffer, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/*
+Jednoprzebiegowy tokenizer słów.
+
+Odpowiada dawnemu ciągowi toLowerCase() -> replaceAll("[^a-ząćęłńóśźż0-9\\s]", " ") -> split("\\s+"):
+znak zamieniany jest na małą literę, a jeśli nie należy do alfabetu słów, kończy bieżące słowo.
+Tokeny przekazywane są do odbiorcy jako fragment wewnętrznego bufora, bez tworzenia obiektu String.
+ */
+public class WordTokenizer {
+
+    /*
+    Odbiorca tokenów. Bufor jest ponownie używany, więc odbiorca nie może go zapamiętywać.
+     */
+    public interface TokenSink {
+        void accept(char[] buffer, int length);
+    }
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final TokenSink sink;
+    private char[] token = new char[32];
+    private int length;
+
+    public WordTokenizer(TokenSink sink) {
+        this.sink = sink;
+    }
+
+    public static boolean isWordChar(char c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+        }
+        return switch (c) {
+            case 'ą', 'ć', 'ę', 'ł', 'ń', 'ó', 'ś', 'ź', 'ż' -> true;
+            default -> false;
+        };
+    }
+
+    public static char normalize(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    public void feed(char[] chars, int offset, int count) {
+        final int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            char raw = chars[i];
+            char c = normalize(raw);
+            if (isWordChar(c)) {
+                if (length == token.length) {
+                    char[] grown = new char[token.length * 2];
+                    System.arraycopy(token, 0, grown, 0, length);
+                    token = grown;
+                }
+                token[length++] = c;
+                if (raw == '\u0130') {
+
+                    /*
+                    String.toLowerCase() zamienia 'İ' na "i\u0307", a znak łączący kończy słowo.
+                     */
+                    sink.accept(token, length);
+                    length = 0;
+                }
+            } else if (length > 0) {
+                sink.accept(token, length);
+                length = 0;
+            }
+        }
+    }
+
+    /*
+    Przekazuje ostatnie, niezakończone słowo. Wywoływane po końcu danych wejściowych.
+     */
+    public void finish() {
+        if (length > 0) {
+            sink.accept(token, length);
+            length = 0;
+        }
+    }
+
+    public void tokenize(Reader reader) throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        finish();
+    }
+}
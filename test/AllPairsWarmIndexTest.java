@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+Podobieństwo wszystkich par liczone od razu po starcie silnika, tylko z wektorów zapisanych
+w indeksie plików (bez przeglądu katalogu) - z filtrem LSH i bez niego wynik musi być ten sam.
+ */
+class AllPairsWarmIndexTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void allPairsFromWarmIndexWithLsh() throws Exception {
+        Path directory = Files.createDirectory(temp.resolve("files"));
+        String text = "ala ma kota a kot ma ale i psa który goni kota po ogrodzie";
+        Files.writeString(directory.resolve("a.txt"), text, StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("b.txt"), text, StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("c.txt"), "zupełnie inny tekst o pogodzie deszczu i wietrze", StandardCharsets.UTF_8);
+        Path index = temp.resolve("index");
+
+        AnalysisEngine scan = engine(config(directory, index));
+        try {
+            scan.start();
+            scan.awaitCompletion();
+        } finally {
+            scan.shutdown();
+        }
+
+        assertEquals(1, allPairsFromIndex(config(directory, index).setLshBands(16).setLshRows(2), temp.resolve("lsh.csv")));
+        assertEquals(1, allPairsFromIndex(config(directory, index), temp.resolve("exact.csv")));
+    }
+
+    private long allPairsFromIndex(EngineConfig config, Path output) throws IOException {
+        AnalysisEngine engine = engine(config);
+        try {
+            long pairs = engine.computeAllPairs(0.99, output, AllPairsSimilarity.Format.CSV);
+            List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+            assertEquals(pairs, lines.stream().filter(line -> line.contains("a.txt") && line.contains("b.txt")).count());
+            return pairs;
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static EngineConfig config(Path directory, Path index) {
+        return new EngineConfig().setDirectory(directory).setIndexPath(index).setWatch(false).setConsumers(1);
+    }
+
+    private static AnalysisEngine engine(EngineConfig config) {
+        return new AnalysisEngine(config, new AnalysisEngine.Listener() {
+            @Override
+            public void log(String message) {
+            }
+
+            @Override
+            public void fileAnalyzed(Path path, WordFrequencyMap topWords) {
+            }
+
+            @Override
+            public void similarityComputed(CosineSimilarity.SimilarityResults result) {
+            }
+        });
+    }
+}